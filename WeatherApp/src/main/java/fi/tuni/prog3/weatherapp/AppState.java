@@ -0,0 +1,93 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class for the user state stored by WeatherDataStorage: favorite cities, the current
+ * city and the search history, saved together in one versioned file. The sequence
+ * number is that of the last journal entry included in the state.
+ */
+public class AppState {
+    /**
+     * Version of the state file format written by this version of the application.
+     */
+    public static final int CURRENT_VERSION = 2;
+
+    /**
+     * State without favorites, current city or history.
+     */
+    public static final AppState EMPTY = new AppState(CURRENT_VERSION, 0, List.of(), null, List.of());
+
+    private final int version;
+    private final long sequence;
+    private final List<String> favorites;
+    private final String currentCity;
+    private final List<String> history;
+
+    /**
+     * Constructor.
+     * @param version Version of the file format.
+     * @param sequence Sequence number of the last journal entry included; 0 in version 1 files.
+     * @param favorites Favorite cities.
+     * @param currentCity Current city, or null.
+     * @param history Search history, newest first.
+     */
+    @JsonCreator
+    public AppState(@JsonProperty("version") int version, @JsonProperty("seq") long sequence,
+            @JsonProperty("favorites") List<String> favorites, @JsonProperty("current") String currentCity,
+            @JsonProperty("history") List<String> history) {
+        this.version = version;
+        this.sequence = sequence;
+        this.favorites = favorites == null ? List.of() : List.copyOf(favorites);
+        this.currentCity = currentCity;
+        this.history = history == null ? List.of() : List.copyOf(history);
+    }
+
+    /**
+     * Returns the version of the file format.
+     * @return version.
+     */
+    @JsonProperty("version")
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the sequence number of the last journal entry included in the state.
+     * @return sequence number.
+     */
+    @JsonProperty("seq")
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns favorite cities.
+     * @return favorite cities.
+     */
+    @JsonProperty("favorites")
+    public List<String> getFavorites() {
+        return favorites;
+    }
+
+    /**
+     * Returns current city.
+     * @return current city, or null.
+     */
+    @JsonProperty("current")
+    public String getCurrentCity() {
+        return currentCity;
+    }
+
+    /**
+     * Returns search history.
+     * @return search history, newest first.
+     */
+    @JsonProperty("history")
+    public List<String> getHistory() {
+        return history;
+    }
+}
@@ -0,0 +1,181 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Crash-safe file replacement.
+ * The new content is written to a temporary file next to the target, which then
+ * replaces the target with an atomic rename. Readers and a crash mid-write see
+ * either the old or the new file, never a partly written one.
+ */
+public final class AtomicFiles {
+    /**
+     * How far a write is forced to the storage device before it returns.
+     */
+    public enum Durability {
+        /**
+         * No fsync; the operating system writes the data later. Survives a crash of
+         * the application, but not of the operating system or a power loss.
+         */
+        NONE,
+        /**
+         * The file content is forced to the device before the rename.
+         */
+        FILE,
+        /**
+         * Like FILE, and the directory is forced after the rename, so the rename
+         * itself survives a power loss.
+         */
+        DIRECTORY;
+
+        /**
+         * Returns the durability with the given name, ignoring case.
+         * @param name Name, e.g. "file".
+         * @throws IllegalArgumentException If the name is not known.
+         * @return durability.
+         */
+        public static Durability parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Durability used when none is given, from the system property
+     * {@code weatherapp.fsync} (none, file or directory); FILE by default or if the value is not known.
+     */
+    public static final Durability DEFAULT_DURABILITY = durabilityOf(System.getProperty("weatherapp.fsync"));
+
+    private static final String TEMP_PREFIX = "." + ProcessHandle.current().pid() + "-";
+    private static final AtomicLong TEMP_COUNTER = new AtomicLong();
+
+    private AtomicFiles() {
+        // static helpers
+    }
+
+    /**
+     * Replaces the content of the file.
+     * @param target File to write.
+     * @param content New content.
+     * @param durability How far the write is forced to the device.
+     * @throws IOException If the file cannot be written; the old file is then left as it was.
+     */
+    public static void write(Path target, byte[] content, Durability durability) throws IOException {
+        Path temp = writeTemp(target, content, durability != Durability.NONE);
+        try {
+            replace(temp, target);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (durability == Durability.DIRECTORY) {
+            forceDirectory(directoryOf(target));
+        }
+    }
+
+    /**
+     * Deletes the temporary files a crash between writing and renaming left in the
+     * directory. Temporary files of processes that are still running are kept.
+     * @param directory Directory to clean.
+     * @return number of files deleted.
+     */
+    public static int deleteStaleTemps(Path directory) {
+        int deleted = 0;
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, ".*-*.tmp")) {
+            for (Path temp : temps) {
+                String name = temp.getFileName().toString();
+                long pid;
+                try {
+                    pid = Long.parseLong(name.substring(1, name.indexOf('-')));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+                    continue;
+                }
+                Files.deleteIfExists(temp);
+                deleted++;
+            }
+        } catch (NoSuchFileException e) {
+            // nothing written yet
+        } catch (IOException e) {
+            System.err.println("Error removing temporary files: " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    /**
+     * Returns the durability for a value of the weatherapp.fsync property.
+     * @param value Property value, or null.
+     * @return the durability, FILE if the value is null or not known.
+     */
+    static Durability durabilityOf(String value) {
+        if (value == null) {
+            return Durability.FILE;
+        }
+        try {
+            return Durability.parse(value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown weatherapp.fsync value \"" + value + "\", using file");
+            return Durability.FILE;
+        }
+    }
+
+    private static Path writeTemp(Path target, byte[] content, boolean force) throws IOException {
+        Path temp = target.resolveSibling(TEMP_PREFIX + TEMP_COUNTER.incrementAndGet() + "-"
+                + target.getFileName() + ".tmp");
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (NoSuchFileException e) {
+            // Stores create their directory once up front; this covers a directory that is still missing
+            Files.createDirectories(directoryOf(target));
+            channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        try (FileChannel out = channel) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            if (force) {
+                out.force(true);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+
+    private static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform (e.g. Windows); the rename is still atomic there
+        }
+    }
+
+    private static Path directoryOf(Path file) {
+        Path parent = file.toAbsolutePath().getParent();
+        return parent != null ? parent : file.toAbsolutePath().getRoot();
+    }
+}
@@ -0,0 +1,295 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fi.tuni.prog3.weatherapp.ImplementAPI.ForecastNotFoundException;
+import fi.tuni.prog3.weatherapp.ImplementAPI.LocationNotFoundException;
+import fi.tuni.prog3.weatherapp.ImplementAPI.WeatherDataNotFoundException;
+
+/**
+ * Caching decorator for an iAPI implementation.
+ * Responses are kept per coordinates for a configurable time, so repeated
+ * lookups of the same city are served from memory. Concurrent requests for
+ * the same coordinates share a single call to the underlying API.
+ * The refresh methods reload an entry before it expires, e.g. from a RefreshScheduler,
+ * so that reads keep being served from memory.
+ */
+public class CachingAPI implements iAPI {
+    /**
+     * Default time to keep current weather data.
+     */
+    public static final Duration DEFAULT_WEATHER_TTL = Duration.ofMinutes(5);
+
+    /**
+     * Default time to keep forecast data.
+     */
+    public static final Duration DEFAULT_FORECAST_TTL = Duration.ofMinutes(30);
+
+    /**
+     * Default maximum number of locations kept per endpoint.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private final iAPI delegate;
+    private final ResponseCache<CurrentCityWeather> weatherCache;
+    private final ResponseCache<ForecastBundle> forecastCache;
+
+    /**
+     * Constructor with the default time-to-live values and size.
+     * @param delegate API to cache.
+     */
+    public CachingAPI(iAPI delegate) {
+        this(delegate, DEFAULT_WEATHER_TTL, DEFAULT_FORECAST_TTL, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Constructor.
+     * @param delegate API to cache.
+     * @param weatherTtl Time to keep current weather data.
+     * @param forecastTtl Time to keep forecast data.
+     * @param maxEntries Maximum number of locations kept per endpoint.
+     */
+    public CachingAPI(iAPI delegate, Duration weatherTtl, Duration forecastTtl, int maxEntries) {
+        this.delegate = delegate;
+        this.weatherCache = new ResponseCache<>(weatherTtl, maxEntries);
+        this.forecastCache = new ResponseCache<>(forecastTtl, maxEntries);
+    }
+
+    /**
+     * Looks up the coordinates for the given location. Not cached.
+     * @param location Location to look up.
+     * @throws LocationNotFoundException If the location is not found.
+     * @return Coordinates for the location.
+     */
+    @Override
+    public Coordinates lookUpLocation(String location) throws LocationNotFoundException {
+        return delegate.lookUpLocation(location);
+    }
+
+    /**
+     * Returns the daily forecasts, from the cached forecast bundle if possible.
+     * @param coordinates Coordinates to get the forecast for.
+     * @throws ForecastNotFoundException If the forecast is not found.
+     * @return List of daily forecasts.
+     */
+    @Override
+    public List<DailyForecast> getForecast(Coordinates coordinates) throws ForecastNotFoundException {
+        return getForecastBundle(coordinates).getDaily();
+    }
+
+    /**
+     * Returns the hourly forecasts, from the cached forecast bundle if possible.
+     * @param coordinates Coordinates to get the forecast for.
+     * @throws ForecastNotFoundException If the forecast is not found.
+     * @return List of hourly forecasts.
+     */
+    @Override
+    public List<HourlyForecast> getHourlyForecast(Coordinates coordinates) throws ForecastNotFoundException {
+        return getForecastBundle(coordinates).getHourly();
+    }
+
+    /**
+     * Returns the forecast bundle, from the cache if possible.
+     * @param coordinates Coordinates to get the forecasts for.
+     * @throws ForecastNotFoundException If the forecast is not found.
+     * @return ForecastBundle with hourly and daily forecasts.
+     */
+    @Override
+    public ForecastBundle getForecastBundle(Coordinates coordinates) throws ForecastNotFoundException {
+        return forecastCache.get(coordinates, delegate::getForecastBundle);
+    }
+
+    /**
+     * Sets the forecast horizon of the underlying API and drops the cached forecasts,
+     * which were loaded with the previous horizon.
+     * @param hours Number of hourly entries, 1 to 48.
+     * @param days Number of daily entries including today, 1 to 8.
+     * @throws IllegalArgumentException If the horizon is out of range.
+     */
+    @Override
+    public void setForecastHorizon(int hours, int days) {
+        delegate.setForecastHorizon(hours, days);
+        forecastCache.clear();
+    }
+
+    /**
+     * Returns the current weather, from the cache if possible.
+     * @param coordinates Coordinates to get the weather for.
+     * @throws WeatherDataNotFoundException If the weather data is not found.
+     * @return CurrentCityWeather object.
+     */
+    @Override
+    public CurrentCityWeather weatherApiCall(Coordinates coordinates) throws WeatherDataNotFoundException {
+        return weatherCache.get(coordinates, delegate::weatherApiCall);
+    }
+
+    /**
+     * Reloads the current weather unless it was loaded during the last half of its time-to-live.
+     * @param coordinates Coordinates to refresh the weather for.
+     * @throws WeatherDataNotFoundException If the weather data is not found.
+     * @return true if the weather was loaded, false if the cached entry was young enough.
+     */
+    public boolean refreshWeather(Coordinates coordinates) throws WeatherDataNotFoundException {
+        return weatherCache.refresh(coordinates, delegate::weatherApiCall);
+    }
+
+    /**
+     * Reloads the forecast bundle unless it was loaded during the last half of its time-to-live.
+     * @param coordinates Coordinates to refresh the forecasts for.
+     * @throws ForecastNotFoundException If the forecast is not found.
+     * @return true if the forecasts were loaded, false if the cached entry was young enough.
+     */
+    public boolean refreshForecastBundle(Coordinates coordinates) throws ForecastNotFoundException {
+        return forecastCache.refresh(coordinates, delegate::getForecastBundle);
+    }
+
+    /**
+     * Returns the number of calls served without calling the underlying API.
+     * @return hit count.
+     */
+    public long getHitCount() {
+        return weatherCache.hits.get() + forecastCache.hits.get();
+    }
+
+    /**
+     * Returns the number of calls that went to the underlying API.
+     * @return miss count.
+     */
+    public long getMissCount() {
+        return weatherCache.misses.get() + forecastCache.misses.get();
+    }
+
+    /**
+     * Loads a value for the given coordinates.
+     * @param <V> type of the value.
+     * @param <E> type of the exception thrown by the loader.
+     */
+    private interface Loader<V, E extends Exception> {
+        V load(Coordinates coordinates) throws E;
+    }
+
+    /**
+     * Size-bounded LRU cache with a time-to-live and single-flight loading.
+     * @param <V> type of the cached values.
+     */
+    private static class ResponseCache<V> {
+        private final long ttlNanos;
+        private final Map<Coordinates, CachedValue<V>> entries;
+        private final Map<Coordinates, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        // Guarded by entries; loads started before the last clear() are not stored
+        private long generation;
+
+        ResponseCache(Duration ttl, int maxEntries) {
+            this.ttlNanos = ttl.toNanos();
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Coordinates, CachedValue<V>> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        <E extends Exception> V get(Coordinates key, Loader<V, E> loader) throws E {
+            CachedValue<V> entry = youngerThan(key, ttlNanos);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            return load(key, loader);
+        }
+
+        <E extends Exception> boolean refresh(Coordinates key, Loader<V, E> loader) throws E {
+            if (youngerThan(key, ttlNanos / 2) != null) {
+                return false;
+            }
+            load(key, loader);
+            return true;
+        }
+
+        void clear() {
+            synchronized (entries) {
+                entries.clear();
+                generation++;
+            }
+            inFlight.clear();
+        }
+
+        private CachedValue<V> youngerThan(Coordinates key, long ageNanos) {
+            synchronized (entries) {
+                CachedValue<V> entry = entries.get(key);
+                if (entry != null && System.nanoTime() - entry.loadedAt < ageNanos) {
+                    return entry;
+                }
+                return null;
+            }
+        }
+
+        private <E extends Exception> V load(Coordinates key, Loader<V, E> loader) throws E {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing != null) {
+                hits.incrementAndGet();
+                return await(existing);
+            }
+
+            misses.incrementAndGet();
+            long loadGeneration;
+            synchronized (entries) {
+                loadGeneration = generation;
+            }
+            try {
+                V value = loader.load(key);
+                synchronized (entries) {
+                    if (generation == loadGeneration) {
+                        entries.put(key, new CachedValue<>(value, System.nanoTime()));
+                    }
+                }
+                future.complete(value);
+                return value;
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                throw t;
+            } finally {
+                inFlight.remove(key, future);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V, E extends Exception> V await(CompletableFuture<V> future) throws E {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw (E) cause;
+            }
+        }
+    }
+
+    /**
+     * Cached value with its load time.
+     * @param <V> type of the value.
+     */
+    private static class CachedValue<V> {
+        private final V value;
+        private final long loadedAt;
+
+        CachedValue(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
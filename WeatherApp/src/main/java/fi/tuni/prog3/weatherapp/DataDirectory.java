@@ -0,0 +1,87 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+
+/**
+ * Location of the application's data files (state, snapshot and geocode cache).
+ * The first of these that is set is used:
+ * the system property {@code weatherapp.dataDir}, the environment variable
+ * {@code WEATHERAPP_DATA_DIR}, {@code $XDG_DATA_HOME/weatherapp}, and finally the
+ * platform's user data directory: {@code %APPDATA%\weatherapp} on Windows,
+ * {@code ~/Library/Application Support/weatherapp} on macOS and
+ * {@code ~/.local/share/weatherapp} elsewhere.
+ * The location no longer depends on the directory the application is started from.
+ */
+public final class DataDirectory {
+    /**
+     * System property overriding the data directory.
+     */
+    public static final String PROPERTY = "weatherapp.dataDir";
+
+    /**
+     * Environment variable overriding the data directory.
+     */
+    public static final String ENVIRONMENT_VARIABLE = "WEATHERAPP_DATA_DIR";
+
+    /**
+     * Directory used before the data directory was configurable, relative to the working directory.
+     * Data found there is imported on the first start.
+     */
+    public static final Path LEGACY = Path.of("src", "main", "resources", "weatherData");
+
+    private static final String APPLICATION = "weatherapp";
+
+    private DataDirectory() {
+        // static helpers
+    }
+
+    /**
+     * Returns the data directory of this process.
+     * @return data directory, absolute.
+     */
+    public static Path get() {
+        return resolve(System::getProperty, System::getenv, System.getProperty("os.name", ""),
+                System.getProperty("user.home", "."));
+    }
+
+    /**
+     * Returns the data directory for the given settings.
+     * @param properties System properties by name.
+     * @param environment Environment variables by name.
+     * @param osName Name of the operating system.
+     * @param userHome Home directory of the user.
+     * @return data directory, absolute.
+     */
+    static Path resolve(UnaryOperator<String> properties, UnaryOperator<String> environment, String osName,
+            String userHome) {
+        String configured = properties.apply(PROPERTY);
+        if (isBlank(configured)) {
+            configured = environment.apply(ENVIRONMENT_VARIABLE);
+        }
+        if (!isBlank(configured)) {
+            return Path.of(configured).toAbsolutePath();
+        }
+
+        String xdgDataHome = environment.apply("XDG_DATA_HOME");
+        if (!isBlank(xdgDataHome) && Path.of(xdgDataHome).isAbsolute()) {
+            return Path.of(xdgDataHome, APPLICATION);
+        }
+
+        String os = osName.toLowerCase(Locale.ROOT);
+        if (os.startsWith("windows")) {
+            String appData = environment.apply("APPDATA");
+            if (!isBlank(appData)) {
+                return Path.of(appData, APPLICATION).toAbsolutePath();
+            }
+        } else if (os.startsWith("mac")) {
+            return Path.of(userHome, "Library", "Application Support", APPLICATION).toAbsolutePath();
+        }
+        return Path.of(userHome, ".local", "share", APPLICATION).toAbsolutePath();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,332 @@
+package fi.tuni.prog3.weatherapp;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hourly or daily forecast series stored as parallel primitive columns.
+ * Entry i of every column describes the same forecast time. For hourly series the
+ * minimum and maximum equal the temperature; for daily series the temperature is
+ * the day temperature. Temperatures are in Celsius.
+ * <p>
+ * Conditions are stored as WeatherCondition ordinals and icons as indexes into a
+ * dictionary of the distinct icon codes of the series, so a series holds no
+ * per-entry objects. As JSON the conditions are written by their API names, so saved
+ * series stay readable when the enum changes. The series is immutable and can be shared between threads;
+ * bulk accessors return copies.
+ */
+public final class ForecastSeries {
+    /**
+     * Series without entries.
+     */
+    public static final ForecastSeries EMPTY = new Builder(0).build(0);
+
+    private static final WeatherCondition[] CONDITIONS = WeatherCondition.values();
+
+    @JsonProperty("times")
+    private final long[] times;
+    @JsonProperty("temperatures")
+    private final double[] temperatures;
+    @JsonProperty("minTemperatures")
+    private final double[] minTemperatures;
+    @JsonProperty("maxTemperatures")
+    private final double[] maxTemperatures;
+    @JsonProperty("pops")
+    private final double[] pops;
+    @JsonProperty("humidity")
+    private final short[] humidity;
+    private final byte[] conditions;
+    @JsonProperty("iconIds")
+    private final short[] iconIds;
+    @JsonProperty("iconDictionary")
+    private final String[] iconDictionary;
+    private final int timezoneOffset;
+
+    private ForecastSeries(long[] times, double[] temperatures, double[] minTemperatures, double[] maxTemperatures,
+            double[] pops, short[] humidity, byte[] conditions, short[] iconIds, String[] iconDictionary,
+            int timezoneOffset) {
+        int size = times.length;
+        if (temperatures.length != size || minTemperatures.length != size || maxTemperatures.length != size
+                || pops.length != size || humidity.length != size || conditions.length != size
+                || iconIds.length != size) {
+            throw new IllegalArgumentException("Forecast columns must have the same length");
+        }
+        for (int i = 0; i < size; i++) {
+            if (iconIds[i] < 0 || iconIds[i] >= iconDictionary.length
+                    || conditions[i] < 0 || conditions[i] >= CONDITIONS.length) {
+                throw new IllegalArgumentException("Invalid icon or condition code at " + i);
+            }
+        }
+        for (int i = 0; i < iconDictionary.length; i++) {
+            iconDictionary[i] = iconDictionary[i].intern();
+        }
+        this.times = times;
+        this.temperatures = temperatures;
+        this.minTemperatures = minTemperatures;
+        this.maxTemperatures = maxTemperatures;
+        this.pops = pops;
+        this.humidity = humidity;
+        this.conditions = conditions;
+        this.iconIds = iconIds;
+        this.iconDictionary = iconDictionary;
+        this.timezoneOffset = timezoneOffset;
+    }
+
+    @JsonCreator
+    private static ForecastSeries fromJson(@JsonProperty("times") long[] times,
+            @JsonProperty("temperatures") double[] temperatures,
+            @JsonProperty("minTemperatures") double[] minTemperatures,
+            @JsonProperty("maxTemperatures") double[] maxTemperatures, @JsonProperty("pops") double[] pops,
+            @JsonProperty("humidity") short[] humidity, @JsonProperty("conditions") String[] conditionNames,
+            @JsonProperty("iconIds") short[] iconIds, @JsonProperty("iconDictionary") String[] iconDictionary,
+            @JsonProperty("timezoneOffset") int timezoneOffset) {
+        byte[] conditions = new byte[conditionNames.length];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = (byte) WeatherCondition.fromApiName(conditionNames[i]).ordinal();
+        }
+        return new ForecastSeries(times, temperatures, minTemperatures, maxTemperatures, pops, humidity, conditions,
+                iconIds, iconDictionary, timezoneOffset);
+    }
+
+    @JsonProperty("conditions")
+    private String[] conditionNames() {
+        String[] names = new String[conditions.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = CONDITIONS[conditions[i]].getApiName();
+        }
+        return names;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return number of entries.
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * Returns forecast time.
+     * @param index Index of the entry.
+     * @return time in seconds since the epoch.
+     */
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    /**
+     * Returns temperature.
+     * @param index Index of the entry.
+     * @return temperature.
+     */
+    public double getTemperature(int index) {
+        return temperatures[index];
+    }
+
+    /**
+     * Returns minimum temperature.
+     * @param index Index of the entry.
+     * @return minimum temperature.
+     */
+    public double getMinTemperature(int index) {
+        return minTemperatures[index];
+    }
+
+    /**
+     * Returns maximum temperature.
+     * @param index Index of the entry.
+     * @return maximum temperature.
+     */
+    public double getMaxTemperature(int index) {
+        return maxTemperatures[index];
+    }
+
+    /**
+     * Returns probability of precipitation.
+     * @param index Index of the entry.
+     * @return probability of precipitation.
+     */
+    public double getPop(int index) {
+        return pops[index];
+    }
+
+    /**
+     * Returns humidity.
+     * @param index Index of the entry.
+     * @return humidity in percent.
+     */
+    public int getHumidity(int index) {
+        return humidity[index];
+    }
+
+    /**
+     * Returns weather condition.
+     * @param index Index of the entry.
+     * @return weather condition.
+     */
+    public WeatherCondition getCondition(int index) {
+        return CONDITIONS[conditions[index]];
+    }
+
+    /**
+     * Returns icon code.
+     * @param index Index of the entry.
+     * @return icon code.
+     */
+    public String getIcon(int index) {
+        return iconDictionary[iconIds[index]];
+    }
+
+    /**
+     * Returns the UTC offset of the location.
+     * @return offset in seconds.
+     */
+    public int getTimezoneOffset() {
+        return timezoneOffset;
+    }
+
+    /**
+     * Returns the lowest minimum temperature of the series.
+     * @return lowest temperature, or NaN if the series is empty.
+     */
+    public double lowestTemperature() {
+        if (minTemperatures.length == 0) {
+            return Double.NaN;
+        }
+        double lowest = minTemperatures[0];
+        for (int i = 1; i < minTemperatures.length; i++) {
+            lowest = Math.min(lowest, minTemperatures[i]);
+        }
+        return lowest;
+    }
+
+    /**
+     * Returns the highest maximum temperature of the series.
+     * @return highest temperature, or NaN if the series is empty.
+     */
+    public double highestTemperature() {
+        if (maxTemperatures.length == 0) {
+            return Double.NaN;
+        }
+        double highest = maxTemperatures[0];
+        for (int i = 1; i < maxTemperatures.length; i++) {
+            highest = Math.max(highest, maxTemperatures[i]);
+        }
+        return highest;
+    }
+
+    /**
+     * Returns a copy of the temperature column, e.g. for a chart.
+     * @param fahrenheit true to convert the temperatures to Fahrenheit.
+     * @return temperatures in Celsius or Fahrenheit.
+     */
+    public double[] copyTemperatures(boolean fahrenheit) {
+        double[] copy = Arrays.copyOf(temperatures, temperatures.length);
+        if (fahrenheit) {
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = UnitFormat.celsiusToFahrenheit(copy[i]);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the time column.
+     * @return times in seconds since the epoch.
+     */
+    public long[] copyTimes() {
+        return Arrays.copyOf(times, times.length);
+    }
+
+    /**
+     * Builder collecting the entries of a series row by row.
+     */
+    public static class Builder {
+        private long[] times;
+        private double[] temperatures;
+        private double[] minTemperatures;
+        private double[] maxTemperatures;
+        private double[] pops;
+        private short[] humidity;
+        private byte[] conditions;
+        private short[] iconIds;
+        private final Map<String, Short> iconIndex = new HashMap<>();
+        private int size;
+
+        /**
+         * Constructor.
+         * @param capacity Expected number of entries.
+         */
+        public Builder(int capacity) {
+            times = new long[capacity];
+            temperatures = new double[capacity];
+            minTemperatures = new double[capacity];
+            maxTemperatures = new double[capacity];
+            pops = new double[capacity];
+            humidity = new short[capacity];
+            conditions = new byte[capacity];
+            iconIds = new short[capacity];
+        }
+
+        /**
+         * Adds one entry.
+         * @param time Forecast time in seconds since the epoch.
+         * @param temperature Temperature.
+         * @param min Minimum temperature.
+         * @param max Maximum temperature.
+         * @param pop Probability of precipitation.
+         * @param humidityPercent Humidity in percent.
+         * @param condition Weather condition.
+         * @param icon Icon code.
+         * @return this builder.
+         */
+        public Builder add(long time, double temperature, double min, double max, double pop, int humidityPercent,
+                WeatherCondition condition, String icon) {
+            if (size == times.length) {
+                grow();
+            }
+            times[size] = time;
+            temperatures[size] = temperature;
+            minTemperatures[size] = min;
+            maxTemperatures[size] = max;
+            pops[size] = pop;
+            humidity[size] = (short) humidityPercent;
+            conditions[size] = (byte) condition.ordinal();
+            iconIds[size] = iconIndex.computeIfAbsent(icon, key -> (short) iconIndex.size());
+            size++;
+            return this;
+        }
+
+        /**
+         * Builds the series.
+         * @param timezoneOffset UTC offset of the location in seconds.
+         * @return the series.
+         */
+        public ForecastSeries build(int timezoneOffset) {
+            String[] dictionary = new String[iconIndex.size()];
+            for (Map.Entry<String, Short> entry : iconIndex.entrySet()) {
+                dictionary[entry.getValue()] = entry.getKey();
+            }
+            return new ForecastSeries(Arrays.copyOf(times, size), Arrays.copyOf(temperatures, size),
+                    Arrays.copyOf(minTemperatures, size), Arrays.copyOf(maxTemperatures, size),
+                    Arrays.copyOf(pops, size), Arrays.copyOf(humidity, size), Arrays.copyOf(conditions, size),
+                    Arrays.copyOf(iconIds, size), dictionary, timezoneOffset);
+        }
+
+        private void grow() {
+            int capacity = Math.max(8, times.length * 2);
+            times = Arrays.copyOf(times, capacity);
+            temperatures = Arrays.copyOf(temperatures, capacity);
+            minTemperatures = Arrays.copyOf(minTemperatures, capacity);
+            maxTemperatures = Arrays.copyOf(maxTemperatures, capacity);
+            pops = Arrays.copyOf(pops, capacity);
+            humidity = Arrays.copyOf(humidity, capacity);
+            conditions = Arrays.copyOf(conditions, capacity);
+            iconIds = Arrays.copyOf(iconIds, capacity);
+        }
+    }
+}
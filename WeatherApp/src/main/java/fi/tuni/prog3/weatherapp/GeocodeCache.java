@@ -0,0 +1,192 @@
+package fi.tuni.prog3.weatherapp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import fi.tuni.prog3.weatherapp.iAPI.Coordinates;
+
+/**
+ * Persistent cache of geocoding results.
+ * City names are normalized (case, whitespace and diacritics) before lookup,
+ * and names the API could not find are remembered for a while as well.
+ */
+public class GeocodeCache {
+    /**
+     * Default file for the cache, next to the other weather data files.
+     */
+    public static final String DEFAULT_FILE = WeatherDataStorage.DATA_DIRECTORY + "geocode_cache.json";
+
+    /**
+     * Time to remember that a name was not found.
+     */
+    public static final Duration NOT_FOUND_TTL = Duration.ofDays(1);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String fileName;
+    private final Map<String, CachedLocation> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor. Loads the cache from the given file.
+     * @param fileName File to load and save the cache, or null for an in-memory cache.
+     */
+    public GeocodeCache(String fileName) {
+        this.fileName = fileName;
+        load();
+    }
+
+    /**
+     * Normalizes a city name into a cache key.
+     * @param name City name.
+     * @return Lower case name without diacritics and with single spaces.
+     */
+    public static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the cached result for the given city name.
+     * @param name City name.
+     * @return Cached location, or null if the name has not been looked up (or the not found entry has expired).
+     */
+    public CachedLocation get(String name) {
+        String key = normalize(name);
+        CachedLocation cached = entries.get(key);
+        if (cached != null && !cached.isFound()
+                && System.currentTimeMillis() - cached.notFoundAt > NOT_FOUND_TTL.toMillis()) {
+            entries.remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Stores a found location.
+     * @param name City name that was searched.
+     * @param resolvedName Name of the city returned by the API.
+     * @param coordinates Coordinates of the city.
+     */
+    public void put(String name, String resolvedName, Coordinates coordinates) {
+        entries.put(normalize(name), new CachedLocation(resolvedName, coordinates, 0));
+        save();
+    }
+
+    /**
+     * Stores that the given name was not found.
+     * @param name City name that was searched.
+     */
+    public void putNotFound(String name) {
+        entries.put(normalize(name), new CachedLocation(null, null, System.currentTimeMillis()));
+        save();
+    }
+
+    /**
+     * Loads the cache from the file, if it exists.
+     */
+    private void load() {
+        if (fileName == null) {
+            return;
+        }
+        File file = new File(fileName);
+        if (!file.exists()) {
+            return;
+        }
+
+        try {
+            JsonNode root = JsonMappers.readTree(file);
+            Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode node = field.getValue();
+                if (node.has("notFoundAt")) {
+                    entries.put(field.getKey(), new CachedLocation(null, null, node.get("notFoundAt").asLong()));
+                } else {
+                    Coordinates coordinates = new Coordinates(node.path("lat").asDouble(), node.path("lon").asDouble());
+                    entries.put(field.getKey(), new CachedLocation(node.path("name").asText(), coordinates, 0));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading geocode cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the cache to the file.
+     */
+    private synchronized void save() {
+        if (fileName == null) {
+            return;
+        }
+
+        try {
+            ObjectNode root = JsonMappers.NODES.objectNode();
+            for (Map.Entry<String, CachedLocation> entry : entries.entrySet()) {
+                CachedLocation cached = entry.getValue();
+                ObjectNode node = root.putObject(entry.getKey());
+                if (cached.isFound()) {
+                    node.put("name", cached.getName());
+                    node.put("lat", cached.getCoordinates().getLatitude());
+                    node.put("lon", cached.getCoordinates().getLongitude());
+                } else {
+                    node.put("notFoundAt", cached.notFoundAt);
+                }
+            }
+
+            JsonMappers.writeFile(new File(fileName), root, true);
+        } catch (IOException e) {
+            System.err.println("Error saving geocode cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cached result of a geocoding lookup.
+     */
+    public static class CachedLocation {
+        private final String name;
+        private final Coordinates coordinates;
+        private final long notFoundAt;
+
+        private CachedLocation(String name, Coordinates coordinates, long notFoundAt) {
+            this.name = name;
+            this.coordinates = coordinates;
+            this.notFoundAt = notFoundAt;
+        }
+
+        /**
+         * Returns true if the location was found.
+         * @return true if found, false if the API returned no results.
+         */
+        public boolean isFound() {
+            return coordinates != null;
+        }
+
+        /**
+         * Returns the name of the city returned by the API.
+         * @return city name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the coordinates of the city.
+         * @return coordinates.
+         */
+        public Coordinates getCoordinates() {
+            return coordinates;
+        }
+    }
+}
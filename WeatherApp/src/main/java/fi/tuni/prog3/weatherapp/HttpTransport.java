@@ -0,0 +1,129 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Class for making HTTP requests to the OpenWeatherMap API.
+ * One pooled client is shared by every call, so requests to the same host
+ * reuse keep-alive (or HTTP/2) connections instead of opening a new one each time.
+ */
+public class HttpTransport {
+    /**
+     * Default timeout for opening a connection.
+     */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Default timeout for receiving a response.
+     */
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final HttpTransport SHARED = new HttpTransport(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+
+    private final HttpClient client;
+    private final Duration readTimeout;
+
+    /**
+     * Constructor.
+     * @param connectTimeout Timeout for opening a connection.
+     * @param readTimeout Timeout for receiving a response.
+     */
+    public HttpTransport(Duration connectTimeout, Duration readTimeout) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Returns the transport shared by the whole application.
+     * @return shared HttpTransport.
+     */
+    public static HttpTransport shared() {
+        return SHARED;
+    }
+
+    /**
+     * Makes a GET request to the given URL and returns the response body as a stream.
+     * The body is read from the connection as the caller consumes it; the caller must close the stream.
+     * @param url URL to make the request to.
+     * @throws IOException If the request fails, times out or the response code is not 200.
+     * @return Response body as an InputStream.
+     */
+    public InputStream getStream(String url) throws IOException {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(readTimeout)
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid API request URL: " + redact(url), e);
+        }
+
+        try {
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("Error in API request. Response Code: " + response.statusCode());
+            }
+            return new DrainingInputStream(response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("API request interrupted: " + redact(url));
+        }
+    }
+
+    /**
+     * Returns the URL without its query string, which holds the API key.
+     * @param url URL to redact.
+     * @return URL safe to show in error messages.
+     */
+    static String redact(String url) {
+        int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query) + "?...";
+    }
+
+    /**
+     * Response body stream that reads the rest of the body before closing.
+     * A parser stops at the end of the JSON value, and closing the body before
+     * its end would make the client drop the connection instead of reusing it.
+     */
+    private static class DrainingInputStream extends FilterInputStream {
+        private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+        private boolean closed;
+
+        DrainingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                byte[] buffer = new byte[1024];
+                int drained = 0;
+                int read;
+                while (drained < MAX_DRAIN_BYTES && (read = in.read(buffer)) != -1) {
+                    drained += read;
+                }
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
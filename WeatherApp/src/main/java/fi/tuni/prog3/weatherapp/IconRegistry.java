@@ -0,0 +1,91 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry mapping icon codes to image resource paths.
+ * Built once from the icons.properties manifest and immutable afterwards.
+ * Codes missing from the manifest fall back to the default image and are counted.
+ */
+public final class IconRegistry {
+    /**
+     * Icon code of the default image.
+     */
+    public static final String DEFAULT_CODE = "DEFAULT_IMAGE";
+
+    private static final String MANIFEST = "/icons.properties";
+    private static final Map<String, String> PATHS = loadManifest();
+    private static final String DEFAULT_PATH = PATHS.get(DEFAULT_CODE);
+    private static final AtomicLong UNMAPPED_COUNT = new AtomicLong();
+
+    private IconRegistry() {
+        // static registry
+    }
+
+    /**
+     * Returns the image resource path for the given icon code.
+     * @param iconCode OpenWeatherMap icon code (e.g. "10d") or UI icon name (e.g. "FAVORITE").
+     * @return Path to the image, or the default image path if the code is not mapped.
+     */
+    public static String resolve(String iconCode) {
+        String path = iconCode == null ? null : PATHS.get(iconCode);
+        if (path == null) {
+            UNMAPPED_COUNT.incrementAndGet();
+            return DEFAULT_PATH;
+        }
+        return path;
+    }
+
+    /**
+     * Returns the number of lookups of codes that are not in the manifest.
+     * @return unmapped lookup count.
+     */
+    public static long getUnmappedCount() {
+        return UNMAPPED_COUNT.get();
+    }
+
+    /**
+     * Returns the OpenWeatherMap weather icon codes in the manifest.
+     * @return list of weather icon codes, e.g. "01d".
+     */
+    public static List<String> getWeatherIconCodes() {
+        List<String> codes = new ArrayList<>();
+        for (String code : PATHS.keySet()) {
+            if (Character.isDigit(code.charAt(0))) {
+                codes.add(code);
+            }
+        }
+        Collections.sort(codes);
+        return codes;
+    }
+
+    private static Map<String, String> loadManifest() {
+        Properties properties = new Properties();
+        try (InputStream stream = IconRegistry.class.getResourceAsStream(MANIFEST)) {
+            if (stream == null) {
+                throw new IllegalStateException("Icon manifest not found: " + MANIFEST);
+            }
+            properties.load(stream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading icon manifest: " + e.getMessage(), e);
+        }
+
+        Map<String, String> paths = new HashMap<>();
+        for (String code : properties.stringPropertyNames()) {
+            paths.put(code, properties.getProperty(code).trim());
+        }
+        if (!paths.containsKey(DEFAULT_CODE)) {
+            throw new IllegalStateException("Icon manifest has no " + DEFAULT_CODE + " entry");
+        }
+        return Collections.unmodifiableMap(paths);
+    }
+}
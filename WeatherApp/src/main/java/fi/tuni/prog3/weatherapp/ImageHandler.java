@@ -2,13 +2,28 @@ package fi.tuni.prog3.weatherapp;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class for handling images.
+ * Decoded images are cached per image path and size, so refreshing the UI
+ * does not decode the same PNG files again. Images are decoded directly at
+ * the size they are shown in, so the scene graph does not have to scale them.
  */
 public class ImageHandler {
     private static final int DEFAULT_IMAGE_SIZE = 30;
+    private static final int MAX_CACHED_IMAGES = 128;
+
+    private static final Map<String, Image> IMAGE_CACHE = new LinkedHashMap<>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > MAX_CACHED_IMAGES;
+        }
+    };
 
     /**
      * Default constructor for the ImageHandler class.
@@ -17,71 +32,6 @@ public class ImageHandler {
         // No initialization needed 
     }
 
-    /**
-     * Returns the path to the image for the given weather.
-     * @param weather Weather to get the image for.
-     * @return Path to the image (or default image if no weather is found).
-     */
-    private static String getImagePath(String weather) {
-
-        switch (weather) {
-            case "FAVORITE":
-                return "/icons2/starSelected.png";
-            case "NOT_FAVORITE":
-                return "/icons2/starNotSelected.png";
-            case "HUMIDITY":
-                return "/icons2/HUMIDITY.png";
-            case "UV":
-                return "/icons2/UV.png";                
-            case "TEMP":
-                return "/icons2/TEMP.png";                
-            case "WIND":
-                return "/icons2/WIND.png";                
-            case "RAIN":
-                return "/icons2/RAIN.png";                
-            case "DEFAULT_IMAGE":
-                return "/38.png";
-            case "01d":
-                return "/01d.png";                
-            case "01n":
-                return "/01n.png";                
-            case "02d":
-                return "/02d.png";                
-            case "02n":
-                return "/02n.png";                
-            case "03d":
-                return "/03.png";            
-            case "03n":
-                return "/03.png";                
-            case "04d":
-                return "/03.png";                
-            case "04n":
-                return "/03.png";                
-            case "09d":
-                return "/09.png";                
-            case "09n":
-                return "/09.png";                
-            case "10d":
-                return "/10d.png";                
-            case "10n":
-                return "/10n.png";                
-            case "11d":
-                return "/11d.png";                
-            case "11n":
-                return "/11n.png";            
-            case "13d":
-                return "/13d.png";                
-            case "13n":
-                return "/13n.png";                
-            case "50d":
-                return "/50d.png";                
-            case "50n":
-                return "/50n.png";                
-            default:
-                return "/38.png";
-        }
-    }
-
     /**
      * Creates an ImageView for the given weather.
      * @param iconCode to create the ImageView for.
@@ -99,17 +49,9 @@ public class ImageHandler {
      * @throws ImageNotFoundException if the image is not found.
      */
     public static void updateImage(ImageView imageView, String iconCode) throws ImageNotFoundException, ImageLoadException {
-        String imagePath = getImagePath(iconCode);
-        
-        try (InputStream imageStream = ImageHandler.class.getResourceAsStream(imagePath)) {
-            if (imageStream != null) {
-                Image newImage = new Image(imageStream);
-                imageView.setImage(newImage);
-            } else {
-                throw new ImageNotFoundException("Image not found: " + imagePath);
-            }
-        } catch (Exception e) {
-            throw new ImageLoadException("Error loading image: " + e.getMessage(), e);
+        Image newImage = getImage(IconRegistry.resolve(iconCode), (int) imageView.getFitHeight());
+        if (imageView.getImage() != newImage) {
+            imageView.setImage(newImage);
         }
     }
 
@@ -121,19 +63,89 @@ public class ImageHandler {
      * @return ImageView for the given weather.
      */
     public static ImageView createImageView(String weather, int size) throws ImageNotFoundException, ImageLoadException {
-        String imgString = getImagePath(weather);
-        try {
-            InputStream stream = ImageHandler.class.getResourceAsStream(imgString);
-            if (stream != null) {
-                Image image = new Image(stream);
-                ImageView imageView = new ImageView(image);
-                imageView.setPreserveRatio(true);
-                imageView.setFitHeight(size);
-                return imageView;
-            } else {
-                throw new ImageNotFoundException("Input stream is null for image path: " + imgString);
+        ImageView imageView = new ImageView(getImage(IconRegistry.resolve(weather), size));
+        imageView.setPreserveRatio(true);
+        imageView.setFitHeight(size);
+        return imageView;
+    }
+
+    /**
+     * Decodes the weather icons for the given sizes into the cache on a background thread.
+     * @param sizes Sizes the icons will be shown in.
+     * @return Future completed when all icons have been decoded.
+     */
+    public static CompletableFuture<Void> preloadAsync(int... sizes) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            preload(sizes);
+            future.complete(null);
+        }, "image-preloader");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Decodes the weather icons for the given sizes into the cache ahead of time.
+     * @param sizes Sizes the icons will be shown in.
+     */
+    public static void preload(int... sizes) {
+        for (int size : sizes) {
+            for (String iconCode : IconRegistry.getWeatherIconCodes()) {
+                try {
+                    getImage(IconRegistry.resolve(iconCode), size);
+                } catch (ImageNotFoundException | ImageLoadException e) {
+                    System.err.println("Error preloading image: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the decoded image for the given path and size, from the cache if possible.
+     * @param imagePath Path of the image resource.
+     * @param size Size the image is shown in.
+     * @throws ImageNotFoundException if the image is not found.
+     * @throws ImageLoadException if the image cannot be decoded.
+     * @return Decoded image.
+     */
+    private static Image getImage(String imagePath, int size) throws ImageNotFoundException, ImageLoadException {
+        String key = imagePath + "@" + size;
+        synchronized (IMAGE_CACHE) {
+            Image cached = IMAGE_CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Image image = decodeImage(imagePath, size);
+        synchronized (IMAGE_CACHE) {
+            IMAGE_CACHE.putIfAbsent(key, image);
+            return IMAGE_CACHE.get(key);
+        }
+    }
+
+    /**
+     * Decodes the image at the given resource path, scaled to the given height.
+     * @param imagePath Path of the image resource.
+     * @param size Height to decode the image at, or 0 for the original size.
+     * @throws ImageNotFoundException if the image is not found.
+     * @throws ImageLoadException if the image cannot be decoded.
+     * @return Decoded image.
+     */
+    private static Image decodeImage(String imagePath, int size) throws ImageNotFoundException, ImageLoadException {
+        InputStream imageStream = ImageHandler.class.getResourceAsStream(imagePath);
+        if (imageStream == null) {
+            throw new ImageNotFoundException("Image not found: " + imagePath);
+        }
+
+        try (InputStream stream = imageStream) {
+            Image image = size > 0 ? new Image(stream, 0, size, true, true) : new Image(stream);
+            if (image.isError()) {
+                throw new ImageLoadException("Error loading image: " + imagePath, image.getException());
             }
-        } catch (Exception e) {
+            return image;
+        } catch (IOException e) {
             throw new ImageLoadException("Error loading image: " + e.getMessage(), e);
         }
     }
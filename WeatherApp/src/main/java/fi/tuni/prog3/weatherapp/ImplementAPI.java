@@ -1,65 +1,120 @@
 package fi.tuni.prog3.weatherapp;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * Class for extracting data from the OpenWeatherMap API.
  */
 public class ImplementAPI implements iAPI {
 
+    /**
+     * Base URL of the OpenWeatherMap API.
+     */
+    public static final String DEFAULT_BASE_URL = "http://api.openweathermap.org";
+
+    /**
+     * Unit system requested from the API for all weather data.
+     * The data classes hold metric values and UnitFormat converts them for display,
+     * so switching units in the UI needs no new request.
+     */
+    public static final String UNITS = "metric";
+
     /**
      * Name of the current location.
      */
     String currentLocation = "Tampere";
 
+    private final HttpTransport transport;
+    private final String baseUrl;
+    private final GeocodeCache geocodeCache;
+    private final Map<Coordinates, String> namesByCoordinates = new ConcurrentHashMap<>();
+    private volatile int hourlyHorizon = ResponseDecoder.MAX_HOURS;
+    private volatile int dailyHorizon = ResponseDecoder.MAX_DAYS;
+
     /**
      * Default constructor for ImplementAPI.
-     * Initializes the class with default settings.
+     * Uses the shared transport, the OpenWeatherMap base URL and the geocode cache file.
      */
     public ImplementAPI() {
-        // no implementation
+        this(HttpTransport.shared(), DEFAULT_BASE_URL, new GeocodeCache(GeocodeCache.DEFAULT_FILE));
+    }
+
+    /**
+     * Constructor with an in-memory geocode cache.
+     * @param transport Transport used for the API calls.
+     * @param baseUrl Base URL of the API, e.g. a local stub server in tests.
+     */
+    public ImplementAPI(HttpTransport transport, String baseUrl) {
+        this(transport, baseUrl, new GeocodeCache(null));
+    }
+
+    /**
+     * Constructor.
+     * @param transport Transport used for the API calls.
+     * @param baseUrl Base URL of the API, e.g. a local stub server in tests.
+     * @param geocodeCache Cache consulted before any geocoding request.
+     */
+    public ImplementAPI(HttpTransport transport, String baseUrl, GeocodeCache geocodeCache) {
+        this.transport = transport;
+        this.baseUrl = baseUrl;
+        this.geocodeCache = geocodeCache;
+    }
+
+    /**
+     * Sets how many entries the full hourly and daily forecast series keep.
+     * The forecast lists always hold 6 hours and 7 days.
+     * @param hours Number of hourly entries, 1 to 48.
+     * @param days Number of daily entries including today, 1 to 8.
+     * @throws IllegalArgumentException If the horizon is out of range.
+     */
+    @Override
+    public void setForecastHorizon(int hours, int days) {
+        ResponseDecoder.checkHorizon(hours, days);
+        this.hourlyHorizon = hours;
+        this.dailyHorizon = days;
     }
 
     /**
      * Looks up the coordinates for the given location.
+     * The geocode cache is checked first, and the API is only called for new names.
      * @param location Location to look up.
      * @throws LocationNotFoundException If the location is not found.
      * @return Coordinates for the location.
      */
     @Override
     public Coordinates lookUpLocation(String location) throws LocationNotFoundException {
+        GeocodeCache.CachedLocation cached = geocodeCache.get(location);
+        if (cached != null) {
+            if (!cached.isFound()) {
+                throw new LocationNotFoundException("No coordinates found for the city: " + location);
+            }
+            return remember(cached.getName(), cached.getCoordinates());
+        }
+
         try {
-            String geocodingUrl = "http://api.openweathermap.org/geo/1.0/direct?q=" + location + "&limit=1&appid=" + API_KEY;
-            String geocodingResponse = makeApiCall(geocodingUrl);
-            
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode geocodingNode = objectMapper.readTree(geocodingResponse);
-
-            if (geocodingNode.isArray() && geocodingNode.size() > 0) {
-                JsonNode cityNode = geocodingNode.get(0);
-                double lat = cityNode.path("lat").asDouble();
-                double lon = cityNode.path("lon").asDouble();
-                currentLocation = cityNode.path("name").asText();
-
-                return new Coordinates(lat, lon);
+            String geocodingUrl = baseUrl + "/geo/1.0/direct?q=" + URLEncoder.encode(location, StandardCharsets.UTF_8)
+                    + "&limit=1&appid=" + API_KEY;
+            GeocodedLocation[] results;
+            try (InputStream geocodingResponse = transport.getStream(geocodingUrl)) {
+                results = JsonMappers.GEOCODING_READER.readValue(geocodingResponse);
+            }
+
+            if (results != null && results.length > 0) {
+                String name = results[0].getName();
+                Coordinates coordinates = new Coordinates(results[0].getLat(), results[0].getLon());
+                geocodeCache.put(location, name, coordinates);
+                return remember(name, coordinates);
             } else {
+                geocodeCache.putNotFound(location);
                 throw new LocationNotFoundException("No coordinates found for the city: " + location);
             }
         } catch (IOException e) {
@@ -68,6 +123,20 @@ public class ImplementAPI implements iAPI {
         }
     }
 
+    /**
+     * Stores the name of a looked up location as the current location and for its coordinates.
+     * Background refreshes look up other cities too, so the weather call uses the name
+     * stored for its coordinates rather than the current location.
+     * @param name Name of the location.
+     * @param coordinates Coordinates of the location.
+     * @return the coordinates.
+     */
+    private Coordinates remember(String name, Coordinates coordinates) {
+        currentLocation = name;
+        namesByCoordinates.put(coordinates, name);
+        return coordinates;
+    }
+
     /**
      * Creates a list of 7 daily forecasts for the given coordinates.
      * @param coordinates Coordinates to get the forecast for.
@@ -75,41 +144,7 @@ public class ImplementAPI implements iAPI {
      * @return List of daily forecasts. 
      */
     public List<DailyForecast> getForecast(Coordinates coordinates) throws ForecastNotFoundException {
-        try {
-            String apiUrl = "http://api.openweathermap.org/data/2.5/onecall?lat=" +
-                    coordinates.getLatitude() + "&lon=" + coordinates.getLongitude() + "&exclude=current,minutely,hourly,alerts&appid=" + API_KEY;
-            String forecastResponse = makeApiCall(apiUrl);
-
-            // Parse the forecastResponse
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(forecastResponse);
-
-            // Extract daily forecast data
-            List<DailyForecast> dailyForecasts = new ArrayList<>();
-            JsonNode dailyNode = jsonNode.path("daily");
-            for (int i = 1; i <= 7; i++) {
-                long timestamp = Instant.now().getEpochSecond() + i * 86400;
-                String date = getDayName(timestamp);
-
-                String icon = dailyNode.get(i).get("weather").get(0).get("icon").asText();
-                String weather = dailyNode.get(i).get("weather").get(0).get("main").asText();
-                String description = dailyNode.get(i).get("weather").get(0).get("description").asText();
-                
-
-                double minTemp = dailyNode.get(i).get("temp").get("min").asDouble();
-                double maxTemp = dailyNode.get(i).get("temp").get("max").asDouble();
-
-                int minTempInCelsius = (int) (Math.round(minTemp - 273.15));
-                int maxTempInCelsius = (int) (Math.round(maxTemp - 273.15));
-
-                DailyForecast dailyForecast = new DailyForecast(date, icon, weather, description, minTempInCelsius, maxTempInCelsius);
-                dailyForecasts.add(dailyForecast);
-            }
-
-            return dailyForecasts;
-        } catch (IOException e) {
-            throw new ForecastNotFoundException("Error retrieving forecast data: " + e.getMessage(), e);
-        }
+        return fetchOneCall(coordinates, "current,minutely,hourly,alerts").getDaily();
     }
 
     /**
@@ -119,37 +154,33 @@ public class ImplementAPI implements iAPI {
      * @return List of hourly forecasts.
      */
     public List<HourlyForecast> getHourlyForecast(Coordinates coordinates) throws ForecastNotFoundException {
-        try {
-            String apiUrl = "http://api.openweathermap.org/data/2.5/onecall?lat=" +
-                    coordinates.getLatitude() + "&lon=" + coordinates.getLongitude() + "&exclude=current,minutely,daily,alerts&appid=" + API_KEY;
-            String forecastResponse = makeApiCall(apiUrl);
-
-            // Parse the forecastResponse
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(forecastResponse);
-
-            String timezone = jsonNode.get("timezone").asText();
-
-            // Extract hourly forecast data
-            List<HourlyForecast> hourlyForecasts = new ArrayList<>();
-            JsonNode hourlyNode = jsonNode.path("hourly");
-            for (int i = 0; i < 6; i++) {
-                long timestamp = hourlyNode.get(i).get("dt").asLong();
-                String time = getHour(timestamp, timezone);
-
-                String icon = hourlyNode.get(i).get("weather").get(0).get("icon").asText();
-                String weather = hourlyNode.get(i).get("weather").get(0).get("main").asText();
-                String description = hourlyNode.get(i).get("weather").get(0).get("description").asText();    
-                double pop = hourlyNode.get(i).get("pop").asDouble();
-                double temp = hourlyNode.get(i).get("temp").asDouble();
-                double tempInCelsius = Math.round((temp - 273.15) * 10.0) / 10.0;
+        return fetchOneCall(coordinates, "current,minutely,daily,alerts").getHourly();
+    }
 
-                HourlyForecast hourlyForecast = new HourlyForecast(time, icon, weather, description, tempInCelsius, pop);
+    /**
+     * Creates both the hourly and the daily forecasts for the given coordinates
+     * from a single One Call request.
+     * @param coordinates Coordinates to get the forecasts for.
+     * @throws ForecastNotFoundException If the forecast is not found.
+     * @return ForecastBundle with hourly and daily forecasts.
+     */
+    @Override
+    public ForecastBundle getForecastBundle(Coordinates coordinates) throws ForecastNotFoundException {
+        return fetchOneCall(coordinates, "current,minutely,alerts");
+    }
 
-                hourlyForecasts.add(hourlyForecast);
-            }
+    /**
+     * Makes a One Call API request and decodes the response as it is received.
+     * @param coordinates Coordinates to get the forecast for.
+     * @param exclude Comma separated list of the parts to leave out of the response.
+     * @throws ForecastNotFoundException If there's an error in the API call or in decoding.
+     * @return ForecastBundle with the parts that were not excluded.
+     */
+    private ForecastBundle fetchOneCall(Coordinates coordinates, String exclude) throws ForecastNotFoundException {
+        String apiUrl = weatherUrl("/data/2.5/onecall", coordinates, "&exclude=" + exclude);
 
-            return hourlyForecasts;
+        try (InputStream forecastResponse = transport.getStream(apiUrl)) {
+            return ResponseDecoder.decodeOneCall(forecastResponse, hourlyHorizon, dailyHorizon);
         } catch (IOException e) {
             throw new ForecastNotFoundException("Error retrieving forecast data: " + e.getMessage(), e);
         }
@@ -162,80 +193,36 @@ public class ImplementAPI implements iAPI {
      * @return CurrentCityWeather object.
      */
     public CurrentCityWeather weatherApiCall(Coordinates coordinates) throws WeatherDataNotFoundException {
-        try {
-            // Make the weather API call using the coordinates 
-            // - Jennu: lisäsin &units=metric niin ei tarvii vaihtaa eriksee
-            String apiUrl = "http://api.openweathermap.org/data/2.5/weather?lat=" +
-                    coordinates.getLatitude() + "&lon=" + coordinates.getLongitude() + "&units=metric" + "&appid=" + API_KEY;
-            String weatherResponse = makeApiCall(apiUrl);
-    
-            // Parse the weather API response
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(weatherResponse);
-    
-            // Extract specific fields from the response        
-            String name = currentLocation;
-            String icon = jsonNode.get("weather").get(0).get("icon").asText();
-            String weather = jsonNode.get("weather").get(0).get("main").asText();
-            String description = jsonNode.get("weather").get(0).get("description").asText();;
-            double temp = jsonNode.get("main").get("temp").asDouble();
-            double feelsLike = jsonNode.get("main").get("feels_like").asDouble();
-            double wind = jsonNode.get("wind").get("speed").asDouble();
-            int humidity = jsonNode.get("main").get("humidity").asInt();
-    
-            // Capitalize the first letter of the description
-            description = description.substring(0, 1).toUpperCase() + description.substring(1);
-
-            CurrentCityWeather currentCityWeather = new CurrentCityWeather(coordinates, name, weather, description, temp, icon, feelsLike, wind, humidity);
-
-            return currentCityWeather;
+        // Make the weather API call using the coordinates 
+        String apiUrl = weatherUrl("/data/2.5/weather", coordinates, "");
+        String name = namesByCoordinates.getOrDefault(coordinates, currentLocation);
 
+        try (InputStream weatherResponse = transport.getStream(apiUrl)) {
+            return ResponseDecoder.decodeCurrent(weatherResponse, coordinates, name);
         } catch (IOException e) {
             throw new WeatherDataNotFoundException("Error retrieving weather data: " + e.getMessage(), e);
         }
     }
     
     /**
-     * Makes an API call to the given URL and returns the response as a String.
-     * @param apiUrl URL to make the API call to.
-     * @throws IOException If there's an error in the API call.
-     * @return Response from the API call as a String.
+     * Builds the URL of a weather request for the given coordinates in the requested units.
+     * @param path Path of the endpoint, e.g. "/data/2.5/weather".
+     * @param coordinates Coordinates to get the data for.
+     * @param parameters Extra query parameters, each starting with {@code &}.
+     * @return request URL.
      */
-    private String makeApiCall(String apiUrl) throws IOException {
-        URL url = new URL(apiUrl);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
-
-        int responseCode = connection.getResponseCode();
-
-        if (responseCode == HttpURLConnection.HTTP_OK) {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-
-            reader.close();
-            return response.toString();
-        } else {
-            throw new IOException("Error in API request. Response Code: " + responseCode);
-        }
+    private String weatherUrl(String path, Coordinates coordinates, String parameters) {
+        return baseUrl + path + "?lat=" + coordinates.getLatitude() + "&lon=" + coordinates.getLongitude()
+                + parameters + "&units=" + UNITS + "&appid=" + API_KEY;
     }
 
     /**
-     * Helper method to convert timestamp to day name.
+     * Helper method to convert timestamp to day name in UTC.
      * @param timestamp timestamp to convert.
      * @return converted day name.
      */
     public static String getDayName(long timestamp) {
-        Date date = new Date(timestamp * 1000);
-
-        SimpleDateFormat sdf = new SimpleDateFormat("EEEE", Locale.ENGLISH);
-        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
-
-        return sdf.format(date);
+        return TimeFormats.dayName(timestamp, 0);
     }
 
     /**  
@@ -244,12 +231,55 @@ public class ImplementAPI implements iAPI {
      * @param timezone timezone to convert to.
      * @return converted hour.
      */
-    private String getHour(long timestamp, String timezone) {
-        Instant instant = Instant.ofEpochSecond(timestamp);
-        LocalDateTime dateTime = LocalDateTime.ofInstant(instant, ZoneId.of(timezone));
+    static String getHour(long timestamp, String timezone) {
+        return TimeFormats.hourLabel(timestamp, timezone);
+    }
+
+    /**
+     * One result of the geocoding API, bound directly from the response.
+     */
+    public static class GeocodedLocation {
+        private final String name;
+        private final double lat;
+        private final double lon;
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-        return dateTime.format(formatter);
+        /**
+         * Constructor.
+         * @param name Name of the location.
+         * @param lat Latitude.
+         * @param lon Longitude.
+         */
+        @JsonCreator
+        public GeocodedLocation(@JsonProperty("name") String name, @JsonProperty("lat") double lat,
+                @JsonProperty("lon") double lon) {
+            this.name = name;
+            this.lat = lat;
+            this.lon = lon;
+        }
+
+        /**
+         * Returns name of the location.
+         * @return name of the location.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns latitude.
+         * @return latitude.
+         */
+        public double getLat() {
+            return lat;
+        }
+
+        /**
+         * Returns longitude.
+         * @return longitude.
+         */
+        public double getLon() {
+            return lon;
+        }
     }
 
     /**
@@ -0,0 +1,204 @@
+package fi.tuni.prog3.weatherapp;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Shared JSON readers and writers, and the only place the JSON engine (Jackson) is configured.
+ * Building an ObjectMapper and warming up its serializer caches is expensive, so the
+ * whole application uses the single mapper configured here. The mapper is never
+ * reconfigured after this class is loaded; readers and writers are immutable and
+ * can be used from any thread.
+ */
+public final class JsonMappers {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Factory for streaming parsers and generators.
+     */
+    public static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    /**
+     * Factory for tree nodes.
+     */
+    public static final JsonNodeFactory NODES = MAPPER.getNodeFactory();
+
+    /**
+     * Reader for JsonNode trees.
+     */
+    public static final ObjectReader TREE_READER = MAPPER.readerFor(JsonNode.class);
+
+    /**
+     * Reader for untyped values (maps, lists, strings and numbers).
+     */
+    public static final ObjectReader VALUE_READER = MAPPER.readerFor(Object.class);
+
+    /**
+     * Reader for a JSON array of strings.
+     */
+    public static final ObjectReader STRING_LIST_READER = MAPPER.readerFor(new TypeReference<List<String>>() {});
+
+    /**
+     * Reader for a saved WeatherSnapshot. Unknown properties are ignored, so older
+     * or newer snapshot files still load.
+     */
+    public static final ObjectReader SNAPSHOT_READER = MAPPER.readerFor(WeatherSnapshot.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * Reader for the WeatherDataStorage state file. Fields added by newer versions are ignored.
+     */
+    public static final ObjectReader STATE_READER = MAPPER.readerFor(AppState.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * Reader for one line of the StateJournal.
+     */
+    public static final ObjectReader JOURNAL_READER = MAPPER.readerFor(StateJournal.Entry.class);
+
+    /**
+     * Reader for a geocoding API response.
+     */
+    public static final ObjectReader GEOCODING_READER = MAPPER.readerFor(ImplementAPI.GeocodedLocation[].class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /**
+     * Writer producing compact JSON.
+     */
+    public static final ObjectWriter WRITER = MAPPER.writer();
+
+    /**
+     * Writer producing indented JSON, used for the data files.
+     */
+    public static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+
+    private JsonMappers() {
+        // static registry
+    }
+
+    /**
+     * Reads a JSON tree from the given file.
+     * @param file File to read.
+     * @throws IOException If the file cannot be read or is not valid JSON.
+     * @return Root node of the file.
+     */
+    public static JsonNode readTree(File file) throws IOException {
+        return readFile(TREE_READER, file);
+    }
+
+    /**
+     * Reads a value from the given file, read into an array of the exact size and parsed from there.
+     * @param <T> Type of the value.
+     * @param reader Reader for the value.
+     * @param file File to read.
+     * @throws IOException If the file cannot be read or parsed; NoSuchFileException if it does not exist.
+     * @return the value.
+     */
+    public static <T> T readFile(ObjectReader reader, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("File " + file + " was truncated while reading");
+                }
+            }
+            return reader.readValue(buffer.array());
+        }
+    }
+
+    /**
+     * Replaces the given file with the value as JSON, with the default durability.
+     * @param file File to write.
+     * @param value Value to write.
+     * @param pretty true to indent the output.
+     * @throws IOException If the file cannot be written; the old file is then left as it was.
+     * @see AtomicFiles#write(java.nio.file.Path, byte[], AtomicFiles.Durability)
+     */
+    public static void writeFile(File file, Object value, boolean pretty) throws IOException {
+        writeFile(file, value, pretty, AtomicFiles.DEFAULT_DURABILITY);
+    }
+
+    /**
+     * Replaces the given file with the value as JSON.
+     * @param file File to write.
+     * @param value Value to write.
+     * @param pretty true to indent the output.
+     * @param durability How far the write is forced to the device.
+     * @throws IOException If the file cannot be written; the old file is then left as it was.
+     */
+    public static void writeFile(File file, Object value, boolean pretty, AtomicFiles.Durability durability)
+            throws IOException {
+        AtomicFiles.write(file.toPath(), toBytes(value, pretty), durability);
+    }
+
+    /**
+     * Returns the value as JSON.
+     * @param value Value to write.
+     * @param pretty true to indent the output.
+     * @throws IOException If the value cannot be written as JSON.
+     * @return UTF-8 encoded JSON.
+     */
+    public static byte[] toBytes(Object value, boolean pretty) throws IOException {
+        return (pretty ? PRETTY_WRITER : WRITER).writeValueAsBytes(value);
+    }
+
+    /**
+     * Runs {@link #warmUp()} on a background thread.
+     * @return CompletableFuture that completes when the warm-up is done.
+     */
+    public static CompletableFuture<Void> warmUpAsync() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            warmUp();
+            future.complete(null);
+        }, "json-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Primes the reader and writer caches with the shapes the application uses,
+     * so the first real request or file access does not pay for it.
+     */
+    public static void warmUp() {
+        try {
+            ObjectNode node = NODES.objectNode();
+            node.put("name", "warm-up").put("lat", 0.0).putArray("list").add("a");
+            String json = PRETTY_WRITER.writeValueAsString(node);
+            TREE_READER.readValue(json);
+            VALUE_READER.readValue(json);
+            List<String> list = STRING_LIST_READER.readValue("[\"a\",\"b\"]");
+            WRITER.writeValueAsString(list);
+            PRETTY_WRITER.writeValueAsString(list);
+            GEOCODING_READER.readValue("[{\"name\":\"warm-up\",\"lat\":0.0,\"lon\":0.0,\"country\":\"FI\"}]");
+            WeatherSnapshot snapshot = new WeatherSnapshot(
+                    new iAPI.CurrentCityWeather(new iAPI.Coordinates(0, 0), "warm-up", "Clear", "", 0, "01d", 0, 0, 0),
+                    new iAPI.ForecastBundle(
+                            List.of(new iAPI.HourlyForecast("00:00", "01d", "Clear", "", 0, 0)),
+                            List.of(new iAPI.DailyForecast("Mon", "01d", "Clear", "", 0, 0))));
+            SNAPSHOT_READER.readValue(WRITER.writeValueAsString(snapshot));
+            STATE_READER.readValue(WRITER.writeValueAsString(AppState.EMPTY));
+            JOURNAL_READER.readValue(WRITER.writeValueAsString(
+                    new StateJournal.Entry(0, StateJournal.Operation.CLEAR_HISTORY, null)));
+        } catch (IOException e) {
+            System.err.println("Error warming up JSON mappers: " + e.getMessage());
+        }
+    }
+}
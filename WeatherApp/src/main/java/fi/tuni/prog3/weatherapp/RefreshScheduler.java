@@ -0,0 +1,224 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import fi.tuni.prog3.weatherapp.iAPI.Coordinates;
+
+/**
+ * Refreshes the weather of a set of cities in the background, so that the UI finds
+ * them in the CachingAPI instead of waiting for the network.
+ * The current weather and the forecasts are refreshed on their own intervals, which
+ * are shorter than the cache time-to-live. Every delay is randomized by up to
+ * {@value #JITTER} of its length so the requests of different cities spread out.
+ * A failed refresh is retried after {@link #FIRST_RETRY}, doubling on every further
+ * failure up to {@link #MAX_BACKOFF}.
+ */
+public class RefreshScheduler implements AutoCloseable {
+    /**
+     * Default interval for refreshing the current weather.
+     */
+    public static final Duration DEFAULT_WEATHER_INTERVAL = Duration.ofMinutes(4);
+
+    /**
+     * Default interval for refreshing the forecasts.
+     */
+    public static final Duration DEFAULT_FORECAST_INTERVAL = Duration.ofMinutes(25);
+
+    /**
+     * Delay before retrying a failed refresh for the first time.
+     */
+    public static final Duration FIRST_RETRY = Duration.ofSeconds(30);
+
+    /**
+     * Longest delay between retries of a failing refresh.
+     */
+    public static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+
+    /**
+     * Largest random change of a delay, as a fraction of the delay.
+     */
+    public static final double JITTER = 0.1;
+
+    private static final Duration STARTUP_SPREAD = Duration.ofSeconds(10);
+
+    private final CachingAPI api;
+    private final Duration weatherInterval;
+    private final Duration forecastInterval;
+    private final Consumer<String> onRefresh;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "weather-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Guarded by this
+    private final Map<String, Task[]> tasksByCity = new HashMap<>();
+
+    /**
+     * Constructor with the default intervals.
+     * @param api API whose cache is kept warm.
+     * @param onRefresh Called on the refresh thread with the city name after new data has been loaded.
+     */
+    public RefreshScheduler(CachingAPI api, Consumer<String> onRefresh) {
+        this(api, DEFAULT_WEATHER_INTERVAL, DEFAULT_FORECAST_INTERVAL, onRefresh);
+    }
+
+    /**
+     * Constructor.
+     * @param api API whose cache is kept warm.
+     * @param weatherInterval Interval for refreshing the current weather.
+     * @param forecastInterval Interval for refreshing the forecasts.
+     * @param onRefresh Called on the refresh thread with the city name after new data has been loaded.
+     */
+    public RefreshScheduler(CachingAPI api, Duration weatherInterval, Duration forecastInterval,
+            Consumer<String> onRefresh) {
+        this.api = api;
+        this.weatherInterval = weatherInterval;
+        this.forecastInterval = forecastInterval;
+        this.onRefresh = onRefresh;
+    }
+
+    /**
+     * Sets the cities to keep refreshed. New cities are refreshed within a few seconds;
+     * refreshing cities that are no longer in the collection stops.
+     * @param cities Names of the cities, e.g. the current city and the favorites.
+     */
+    public synchronized void setCities(Collection<String> cities) {
+        Set<String> wanted = new LinkedHashSet<>(cities);
+        tasksByCity.entrySet().removeIf(entry -> {
+            if (wanted.contains(entry.getKey())) {
+                return false;
+            }
+            for (Task task : entry.getValue()) {
+                task.cancel();
+            }
+            return true;
+        });
+
+        for (String city : wanted) {
+            if (city != null && !tasksByCity.containsKey(city)) {
+                Task[] tasks = {
+                    new Task(city, weatherInterval, api::refreshWeather),
+                    new Task(city, forecastInterval, api::refreshForecastBundle)
+                };
+                tasksByCity.put(city, tasks);
+                for (Task task : tasks) {
+                    task.schedule(jitter(Math.min(STARTUP_SPREAD.toNanos() / 2, task.interval.toNanos())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cities that are kept refreshed.
+     * @return names of the cities.
+     */
+    public synchronized Set<String> getCities() {
+        return Set.copyOf(tasksByCity.keySet());
+    }
+
+    /**
+     * Stops all refreshing.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the delay before the next refresh.
+     * @param interval Refresh interval.
+     * @param failures Number of failures in a row, 0 after a successful refresh.
+     * @return delay in nanoseconds, without jitter.
+     */
+    static long nextDelayNanos(Duration interval, int failures) {
+        if (failures == 0) {
+            return interval.toNanos();
+        }
+        long retry = FIRST_RETRY.toNanos() << Math.min(failures - 1, 20);
+        return Math.min(retry, MAX_BACKOFF.toNanos());
+    }
+
+    /**
+     * Randomizes a delay by up to {@value #JITTER} of its length in either direction.
+     * @param delayNanos Delay in nanoseconds.
+     * @return randomized delay in nanoseconds.
+     */
+    static long jitter(long delayNanos) {
+        double factor = 1 + JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return (long) (delayNanos * factor);
+    }
+
+    /**
+     * Refreshes one kind of data for one city.
+     */
+    private interface Refresh {
+        boolean run(Coordinates coordinates) throws Exception;
+    }
+
+    /**
+     * Repeating refresh of one endpoint for one city, with its own backoff.
+     */
+    private class Task implements Runnable {
+        private final String city;
+        private final Duration interval;
+        private final Refresh refresh;
+        private int failures;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> next;
+
+        Task(String city, Duration interval, Refresh refresh) {
+            this.city = city;
+            this.interval = interval;
+            this.refresh = refresh;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                boolean loaded = refresh.run(api.lookUpLocation(city));
+                failures = 0;
+                if (loaded) {
+                    onRefresh.accept(city);
+                }
+            } catch (Exception e) {
+                failures++;
+                System.err.println("Error refreshing " + city + ": " + e.getMessage());
+            }
+            schedule(jitter(nextDelayNanos(interval, failures)));
+        }
+
+        void schedule(long delayNanos) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                next = executor.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // closed
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> scheduled = next;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
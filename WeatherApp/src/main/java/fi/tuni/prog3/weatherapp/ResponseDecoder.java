@@ -0,0 +1,387 @@
+package fi.tuni.prog3.weatherapp;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import fi.tuni.prog3.weatherapp.iAPI.Coordinates;
+import fi.tuni.prog3.weatherapp.iAPI.CurrentCityWeather;
+import fi.tuni.prog3.weatherapp.iAPI.DailyForecast;
+import fi.tuni.prog3.weatherapp.iAPI.ForecastBundle;
+import fi.tuni.prog3.weatherapp.iAPI.HourlyForecast;
+
+/**
+ * Streaming decoder for OpenWeatherMap responses.
+ * Reads the response directly from the input stream with a JsonParser and
+ * only keeps the fields the forecast classes need; everything else is skipped
+ * without building a String or a JsonNode tree.
+ * Temperatures are expected in Celsius (units=metric) and are kept as received.
+ */
+public final class ResponseDecoder {
+    /**
+     * Number of hourly forecasts in the forecast list.
+     */
+    public static final int HOURS = 6;
+
+    /**
+     * Number of daily forecasts in the forecast list, starting from tomorrow.
+     */
+    public static final int DAYS = 7;
+
+    /**
+     * Number of hourly entries in a One Call response, and the default hourly horizon.
+     */
+    public static final int MAX_HOURS = 48;
+
+    /**
+     * Number of daily entries in a One Call response (today included), and the default daily horizon.
+     */
+    public static final int MAX_DAYS = 8;
+
+    private ResponseDecoder() {
+        // static helpers
+    }
+
+    /**
+     * Decodes a One Call response with the default horizon.
+     * @param in Response body.
+     * @throws IOException If the response cannot be read or is incomplete.
+     * @return ForecastBundle with the decoded forecasts.
+     * @see #decodeOneCall(InputStream, int, int)
+     */
+    public static ForecastBundle decodeOneCall(InputStream in) throws IOException {
+        return decodeOneCall(in, MAX_HOURS, MAX_DAYS);
+    }
+
+    /**
+     * Decodes a One Call response into hourly and daily forecasts.
+     * The full series keep up to the given number of entries; the forecast lists always
+     * hold the first {@value #HOURS} hours and {@value #DAYS} days starting from tomorrow.
+     * Either part may be missing from the response, in which case it is empty.
+     * @param in Response body.
+     * @param hourlyHorizon Maximum number of hourly entries kept in the series.
+     * @param dailyHorizon Maximum number of daily entries kept in the series, today included.
+     * @throws IOException If the response cannot be read or is incomplete.
+     * @throws IllegalArgumentException If the horizon is out of range.
+     * @return ForecastBundle with the decoded forecasts.
+     */
+    public static ForecastBundle decodeOneCall(InputStream in, int hourlyHorizon, int dailyHorizon)
+            throws IOException {
+        checkHorizon(hourlyHorizon, dailyHorizon);
+        String timezone = null;
+        int timezoneOffset = 0;
+        boolean hasTimezoneOffset = false;
+        Columns hourly = null;
+        Columns daily = null;
+
+        try (JsonParser parser = JsonMappers.FACTORY.createParser(in)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("timezone".equals(field)) {
+                    timezone = parser.getText();
+                } else if ("timezone_offset".equals(field)) {
+                    timezoneOffset = parser.getValueAsInt();
+                    hasTimezoneOffset = true;
+                } else if ("hourly".equals(field)) {
+                    expect(parser, value, JsonToken.START_ARRAY);
+                    hourly = new Columns(Math.max(hourlyHorizon, HOURS));
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        if (hourly.size < hourly.times.length) {
+                            readHour(parser, hourly);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if ("daily".equals(field)) {
+                    expect(parser, value, JsonToken.START_ARRAY);
+                    daily = new Columns(Math.max(dailyHorizon, DAYS + 1));
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        if (daily.size < daily.times.length) {
+                            readDay(parser, daily);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (!hasTimezoneOffset && timezone != null) {
+            long reference = hourly != null && hourly.size > 0 ? hourly.times[0]
+                    : daily != null && daily.size > 0 ? daily.times[0] : 0;
+            timezoneOffset = TimeFormats.offsetSeconds(reference, timezone);
+        }
+
+        List<HourlyForecast> hourlyForecasts = new ArrayList<>(HOURS);
+        ForecastSeries hourlySeries = ForecastSeries.EMPTY;
+        if (hourly != null) {
+            if (hourly.size < HOURS || timezone == null) {
+                throw new IOException("Incomplete hourly forecast data");
+            }
+            hourlySeries = hourly.toSeries(hourlyHorizon, timezoneOffset);
+            for (int i = 0; i < HOURS; i++) {
+                String time = TimeFormats.hourLabel(hourly.times[i], timezone);
+                String[] weather = hourly.weather[i];
+                hourlyForecasts.add(new HourlyForecast(time, weather[2], weather[0], weather[1],
+                        hourly.temps[i], hourly.pops[i]));
+            }
+        }
+
+        List<DailyForecast> dailyForecasts = new ArrayList<>(DAYS);
+        ForecastSeries dailySeries = ForecastSeries.EMPTY;
+        if (daily != null) {
+            if (daily.size < DAYS + 1) {
+                throw new IOException("Incomplete daily forecast data");
+            }
+            dailySeries = daily.toSeries(dailyHorizon, timezoneOffset);
+            // The first entry is today; the forecast starts from tomorrow
+            for (int i = 1; i <= DAYS; i++) {
+                String date = TimeFormats.dayName(daily.times[i], timezoneOffset);
+                String[] weather = daily.weather[i];
+                dailyForecasts.add(new DailyForecast(date, weather[2], weather[0], weather[1],
+                        daily.mins[i], daily.maxs[i]));
+            }
+        }
+
+        return new ForecastBundle(hourlyForecasts, dailyForecasts, hourlySeries, dailySeries);
+    }
+
+    /**
+     * Checks that the horizon is within the API limits.
+     * @param hourlyHorizon Number of hourly entries.
+     * @param dailyHorizon Number of daily entries, today included.
+     * @throws IllegalArgumentException If the horizon is out of range.
+     */
+    static void checkHorizon(int hourlyHorizon, int dailyHorizon) {
+        if (hourlyHorizon < 1 || hourlyHorizon > MAX_HOURS) {
+            throw new IllegalArgumentException("Hourly horizon must be between 1 and " + MAX_HOURS);
+        }
+        if (dailyHorizon < 1 || dailyHorizon > MAX_DAYS) {
+            throw new IllegalArgumentException("Daily horizon must be between 1 and " + MAX_DAYS);
+        }
+    }
+
+    /**
+     * Decodes a current weather response.
+     * @param in Response body.
+     * @param coordinates Coordinates the weather was requested for.
+     * @param name Name of the location.
+     * @throws IOException If the response cannot be read or is incomplete.
+     * @return CurrentCityWeather object.
+     */
+    public static CurrentCityWeather decodeCurrent(InputStream in, Coordinates coordinates, String name) throws IOException {
+        String[] weather = null;
+        double temp = Double.NaN;
+        double feelsLike = Double.NaN;
+        double wind = Double.NaN;
+        int humidity = -1;
+
+        try (JsonParser parser = JsonMappers.FACTORY.createParser(in)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("weather".equals(field)) {
+                    weather = readWeather(parser, value);
+                } else if ("main".equals(field)) {
+                    expect(parser, value, JsonToken.START_OBJECT);
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String mainField = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("temp".equals(mainField)) {
+                            temp = parser.getValueAsDouble();
+                        } else if ("feels_like".equals(mainField)) {
+                            feelsLike = parser.getValueAsDouble();
+                        } else if ("humidity".equals(mainField)) {
+                            humidity = parser.getValueAsInt();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if ("wind".equals(field)) {
+                    expect(parser, value, JsonToken.START_OBJECT);
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String windField = parser.getCurrentName();
+                        parser.nextToken();
+                        if ("speed".equals(windField)) {
+                            wind = parser.getValueAsDouble();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (weather == null || Double.isNaN(temp) || Double.isNaN(feelsLike) || Double.isNaN(wind) || humidity < 0) {
+            throw new IOException("Incomplete weather data");
+        }
+
+        // Capitalize the first letter of the description
+        String description = weather[1].isEmpty() ? weather[1]
+                : weather[1].substring(0, 1).toUpperCase() + weather[1].substring(1);
+
+        return new CurrentCityWeather(coordinates, name, weather[0], description, temp, weather[2], feelsLike, wind, humidity);
+    }
+
+    /**
+     * Reads one hourly entry into the next row of the columns. The parser is at its START_OBJECT.
+     */
+    private static void readHour(JsonParser parser, Columns columns) throws IOException {
+        int index = columns.size;
+        String[] weather = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("dt".equals(field)) {
+                columns.times[index] = parser.getValueAsLong();
+            } else if ("temp".equals(field)) {
+                columns.temps[index] = parser.getValueAsDouble();
+            } else if ("pop".equals(field)) {
+                columns.pops[index] = parser.getValueAsDouble();
+            } else if ("humidity".equals(field)) {
+                columns.humidity[index] = parser.getValueAsInt();
+            } else if ("weather".equals(field)) {
+                weather = readWeather(parser, value);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (weather == null) {
+            throw new IOException("Hourly forecast without weather");
+        }
+        columns.mins[index] = columns.temps[index];
+        columns.maxs[index] = columns.temps[index];
+        columns.weather[index] = weather;
+        columns.size++;
+    }
+
+    /**
+     * Reads one daily entry into the next row of the columns. The parser is at its START_OBJECT.
+     */
+    private static void readDay(JsonParser parser, Columns columns) throws IOException {
+        int index = columns.size;
+        String[] weather = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("dt".equals(field)) {
+                columns.times[index] = parser.getValueAsLong();
+            } else if ("pop".equals(field)) {
+                columns.pops[index] = parser.getValueAsDouble();
+            } else if ("humidity".equals(field)) {
+                columns.humidity[index] = parser.getValueAsInt();
+            } else if ("temp".equals(field)) {
+                expect(parser, value, JsonToken.START_OBJECT);
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String tempField = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("day".equals(tempField)) {
+                        columns.temps[index] = parser.getValueAsDouble();
+                    } else if ("min".equals(tempField)) {
+                        columns.mins[index] = parser.getValueAsDouble();
+                    } else if ("max".equals(tempField)) {
+                        columns.maxs[index] = parser.getValueAsDouble();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("weather".equals(field)) {
+                weather = readWeather(parser, value);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (weather == null) {
+            throw new IOException("Daily forecast without weather");
+        }
+        columns.weather[index] = weather;
+        columns.size++;
+    }
+
+    /**
+     * Reads the first element of a "weather" array. The parser is at the START_ARRAY.
+     * @return main, description and icon.
+     */
+    private static String[] readWeather(JsonParser parser, JsonToken value) throws IOException {
+        expect(parser, value, JsonToken.START_ARRAY);
+        String[] weather = null;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            if (weather != null) {
+                parser.skipChildren();
+                continue;
+            }
+            weather = new String[] {"", "", ""};
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("main".equals(field)) {
+                    weather[0] = parser.getText();
+                } else if ("description".equals(field)) {
+                    weather[1] = parser.getText();
+                } else if ("icon".equals(field)) {
+                    weather[2] = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (weather == null) {
+            throw new IOException("Empty weather array");
+        }
+        return weather;
+    }
+
+    /**
+     * Columns filled while a forecast array is parsed. Temperatures are in Celsius, as received.
+     */
+    private static class Columns {
+        private final long[] times;
+        private final double[] temps;
+        private final double[] mins;
+        private final double[] maxs;
+        private final double[] pops;
+        private final int[] humidity;
+        private final String[][] weather;
+        private int size;
+
+        Columns(int capacity) {
+            times = new long[capacity];
+            temps = new double[capacity];
+            mins = new double[capacity];
+            maxs = new double[capacity];
+            pops = new double[capacity];
+            humidity = new int[capacity];
+            weather = new String[capacity][];
+        }
+
+        /**
+         * Returns the first rows, at most limit, as a series.
+         */
+        ForecastSeries toSeries(int limit, int timezoneOffset) {
+            int count = Math.min(limit, size);
+            ForecastSeries.Builder builder = new ForecastSeries.Builder(count);
+            for (int i = 0; i < count; i++) {
+                builder.add(times[i], temps[i], mins[i], maxs[i], pops[i], humidity[i], WeatherCondition.fromApiName(weather[i][0]), weather[i][2]);
+            }
+            return builder.build(timezoneOffset);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected JSON: expected " + expected + " but was " + actual
+                    + " at " + parser.getCurrentLocation());
+        }
+    }
+}
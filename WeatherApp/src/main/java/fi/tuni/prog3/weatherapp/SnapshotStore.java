@@ -0,0 +1,58 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Class for persisting the last shown weather snapshot.
+ * The snapshot is shown right away on the next start while fresh data is loaded.
+ * It is stored as bound JSON of the WeatherSnapshot and forecast classes.
+ */
+public class SnapshotStore {
+    /**
+     * Default file for the snapshot, next to the other weather data files in the data directory.
+     */
+    public static final String DEFAULT_FILE = WeatherDataStorage.DATA_DIRECTORY + "last_snapshot.json";
+
+    private final String fileName;
+
+    /**
+     * Constructor.
+     * @param fileName File to read and write the snapshot.
+     */
+    public SnapshotStore(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Reads the last saved snapshot.
+     * @return the snapshot, or null if there is none or it cannot be read.
+     */
+    public WeatherSnapshot load() {
+        File file = new File(fileName);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try {
+            return JsonMappers.readFile(JsonMappers.SNAPSHOT_READER, file);
+        } catch (IOException e) {
+            System.err.println("Error reading snapshot: " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Unexpected error reading snapshot: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Saves the given snapshot, replacing the previous one.
+     * @param snapshot Snapshot to save.
+     */
+    public synchronized void save(WeatherSnapshot snapshot) {
+        try {
+            JsonMappers.writeFile(new File(fileName), snapshot, false);
+        } catch (IOException e) {
+            System.err.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package fi.tuni.prog3.weatherapp;
+
+/**
+ * Class for measuring application start up.
+ * Records the time from launch to the first rendered frame and to the
+ * first fresh data from the API, so cold start regressions can be tracked.
+ * The times are printed only when the system property
+ * {@code weatherapp.startupMetrics} is true.
+ */
+public class StartupMetrics {
+    /**
+     * True if the times are printed, from the system property {@code weatherapp.startupMetrics}.
+     */
+    public static final boolean REPORT = Boolean.getBoolean("weatherapp.startupMetrics");
+
+    private final long launchNanos;
+    private volatile long firstFrameNanos = -1;
+    private volatile long freshDataNanos = -1;
+
+    /**
+     * Constructor.
+     * @param launchNanos System.nanoTime() at launch.
+     */
+    public StartupMetrics(long launchNanos) {
+        this.launchNanos = launchNanos;
+    }
+
+    /**
+     * Records the first rendered frame. Only the first call has an effect.
+     */
+    public void markFirstFrame() {
+        if (firstFrameNanos < 0) {
+            firstFrameNanos = System.nanoTime();
+            report("Startup: first frame after " + getTimeToFirstFrameMillis() + " ms");
+        }
+    }
+
+    /**
+     * Records the first fresh data shown. Only the first call has an effect.
+     */
+    public void markFreshData() {
+        if (freshDataNanos < 0) {
+            freshDataNanos = System.nanoTime();
+            report("Startup: fresh data after " + getTimeToFreshDataMillis() + " ms");
+        }
+    }
+
+    /**
+     * Returns the time from launch to the first rendered frame.
+     * @return time in milliseconds, or -1 if no frame has been rendered yet.
+     */
+    public long getTimeToFirstFrameMillis() {
+        return firstFrameNanos < 0 ? -1 : (firstFrameNanos - launchNanos) / 1_000_000;
+    }
+
+    /**
+     * Returns the time from launch to the first fresh data shown.
+     * @return time in milliseconds, or -1 if no fresh data has been shown yet.
+     */
+    public long getTimeToFreshDataMillis() {
+        return freshDataNanos < 0 ? -1 : (freshDataNanos - launchNanos) / 1_000_000;
+    }
+
+    private static void report(String message) {
+        if (REPORT) {
+            System.out.println(message);
+        }
+    }
+}
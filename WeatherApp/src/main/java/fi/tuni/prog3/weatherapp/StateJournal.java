@@ -0,0 +1,382 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Append-only journal of changes to the stored state.
+ * Each change is one line of compact JSON appended to the journal file, so saving a
+ * change costs a small sequential write instead of rewriting the state. Appends and
+ * compactions run in order on a background thread. An append is written after a
+ * delay, and entries appended until then or while that thread is busy are written
+ * together with one write and one force, so a burst of changes costs one write.
+ * A compaction saves the whole state
+ * as the snapshot file and empties the journal. Unless durability is NONE, the snapshot
+ * and its rename are forced to the device before the journal is emptied, so a power
+ * loss cannot lose both. Entries carry increasing sequence numbers and the snapshot
+ * records the last one it contains, so a crash between the two steps never applies
+ * an entry twice.
+ */
+public class StateJournal implements AutoCloseable {
+    /**
+     * Kinds of changes recorded in the journal.
+     */
+    public enum Operation {
+        ADD_FAVORITE,
+        REMOVE_FAVORITE,
+        SET_CURRENT,
+        ADD_SEARCH,
+        CLEAR_HISTORY
+    }
+
+    /**
+     * Replaces a file with new content, see {@link AtomicFiles#write}.
+     */
+    interface SnapshotWriter {
+        /**
+         * Replaces the file.
+         * @param target File to replace.
+         * @param content New content.
+         * @param durability How far the write is forced to the device.
+         * @throws IOException If the file cannot be written.
+         */
+        void write(Path target, byte[] content, AtomicFiles.Durability durability) throws IOException;
+    }
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final AtomicFiles.Durability durability;
+    private final long writeDelayMillis;
+    private final SnapshotWriter snapshotWriter;
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "state-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Guarded by this
+    private FileChannel channel;
+    // Guarded by this: lines not yet handed to the background thread, whether a task
+    // will write them, the compaction they belong after, and the number of writes so far
+    private List<byte[]> pending = new ArrayList<>();
+    private boolean writeScheduled;
+    private long epoch;
+    private long writeCount;
+
+    /**
+     * Constructor.
+     * @param journalFile Journal file.
+     * @param snapshotFile File the state is saved to on compaction.
+     * @param durability How far appends and compactions are forced to the device.
+     */
+    public StateJournal(Path journalFile, Path snapshotFile, AtomicFiles.Durability durability) {
+        this(journalFile, snapshotFile, durability, Duration.ZERO);
+    }
+
+    /**
+     * Constructor.
+     * @param journalFile Journal file.
+     * @param snapshotFile File the state is saved to on compaction.
+     * @param durability How far appends and compactions are forced to the device.
+     * @param writeDelay How long appended entries wait for more before they are written.
+     */
+    public StateJournal(Path journalFile, Path snapshotFile, AtomicFiles.Durability durability,
+            Duration writeDelay) {
+        this(journalFile, snapshotFile, durability, writeDelay, AtomicFiles::write);
+    }
+
+    /**
+     * Constructor with the function saving the snapshot file.
+     * @param journalFile Journal file.
+     * @param snapshotFile File the state is saved to on compaction.
+     * @param durability How far appends and compactions are forced to the device.
+     * @param writeDelay How long appended entries wait for more before they are written.
+     * @param snapshotWriter Function replacing the snapshot file.
+     */
+    StateJournal(Path journalFile, Path snapshotFile, AtomicFiles.Durability durability, Duration writeDelay,
+            SnapshotWriter snapshotWriter) {
+        this.journalFile = journalFile;
+        this.snapshotFile = snapshotFile;
+        this.durability = durability;
+        this.writeDelayMillis = writeDelay.toMillis();
+        this.snapshotWriter = snapshotWriter;
+        // Delayed writes are flushed by close() instead of waiting for their delay
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Reads the entries of a journal file in order. Reading stops at the first line that
+     * cannot be parsed, e.g. one cut short by a crash.
+     * @param journalFile Journal file.
+     * @throws IOException If the file cannot be read.
+     * @return the entries, empty if the file does not exist.
+     */
+    public static List<Entry> read(Path journalFile) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    entries.add(JsonMappers.JOURNAL_READER.readValue(line));
+                } catch (IOException e) {
+                    System.err.println("Ignoring the rest of the journal: " + e.getMessage());
+                    break;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // nothing journaled yet
+        }
+        return entries;
+    }
+
+    /**
+     * Appends an entry. Returns right away; the entry is written in the background
+     * after the write delay.
+     * @param entry Entry to append.
+     */
+    public void append(Entry entry) {
+        byte[] json;
+        try {
+            json = JsonMappers.toBytes(entry, false);
+        } catch (IOException e) {
+            System.err.println("Error saving change: " + e.getMessage());
+            return;
+        }
+        byte[] line = Arrays.copyOf(json, json.length + 1);
+        line[json.length] = '\n';
+
+        long writeEpoch;
+        synchronized (this) {
+            pending.add(line);
+            if (writeScheduled) {
+                return;
+            }
+            writeScheduled = true;
+            writeEpoch = epoch;
+        }
+        Runnable write = () -> writePending(writeEpoch);
+        try {
+            executor.schedule(write, writeDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed, write on the calling thread
+            write.run();
+        }
+    }
+
+    /**
+     * Saves the state as the snapshot file and empties the journal, after all entries
+     * appended so far have been written. Returns right away.
+     * @param state State including all appended entries, and their last sequence number.
+     */
+    public void compact(AppState state) {
+        List<byte[]> lines;
+        synchronized (this) {
+            // Entries appended from now on are written after the journal is emptied
+            lines = takePending(epoch);
+            epoch++;
+        }
+        submit(() -> {
+            try {
+                writeLines(lines);
+                // The journal may only be emptied once the rename of the snapshot is durable too
+                snapshotWriter.write(snapshotFile, JsonMappers.toBytes(state, false),
+                        durability == AtomicFiles.Durability.NONE
+                                ? AtomicFiles.Durability.NONE : AtomicFiles.Durability.DIRECTORY);
+                FileChannel out = journalChannel();
+                out.truncate(0);
+                if (durability != AtomicFiles.Durability.NONE) {
+                    out.force(true);
+                }
+            } catch (IOException e) {
+                System.err.println("Error compacting journal: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Writes everything appended so far without waiting for the write delay, and waits
+     * until it and every compaction so far have been written.
+     */
+    public void flush() {
+        long flushEpoch;
+        synchronized (this) {
+            flushEpoch = epoch;
+        }
+        try {
+            executor.submit(() -> writePending(flushEpoch)).get();
+        } catch (RejectedExecutionException e) {
+            // closed, appends are written on the calling thread
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error saving changes: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Writes everything appended so far, closes the journal file and stops the background thread.
+     * An empty journal file is removed.
+     */
+    @Override
+    public void close() {
+        flush();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                if (channel != null) {
+                    boolean empty = channel.size() == 0;
+                    channel.close();
+                    channel = null;
+                    if (empty) {
+                        Files.deleteIfExists(journalFile);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error closing journal: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of writes to the journal file so far, each holding one or more entries.
+     * @return number of writes.
+     */
+    synchronized long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Returns the lines appended so far and lets the next append schedule a new write.
+     * @param writeEpoch Epoch the write was scheduled in.
+     * @return the lines, empty if a compaction has taken them since.
+     */
+    private synchronized List<byte[]> takePending(long writeEpoch) {
+        if (writeEpoch != epoch) {
+            return List.of();
+        }
+        List<byte[]> lines = pending;
+        pending = new ArrayList<>();
+        writeScheduled = false;
+        return lines;
+    }
+
+    private void writePending(long writeEpoch) {
+        try {
+            writeLines(takePending(writeEpoch));
+        } catch (IOException e) {
+            System.err.println("Error saving change: " + e.getMessage());
+        }
+    }
+
+    private void writeLines(List<byte[]> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        FileChannel out = journalChannel();
+        ByteBuffer[] buffers = new ByteBuffer[lines.size()];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(lines.get(i));
+        }
+        while (buffers[buffers.length - 1].hasRemaining()) {
+            out.write(buffers);
+        }
+        if (durability != AtomicFiles.Durability.NONE) {
+            out.force(false);
+        }
+        synchronized (this) {
+            writeCount++;
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // closed, write on the calling thread
+            task.run();
+        }
+    }
+
+    private synchronized FileChannel journalChannel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * One change recorded in the journal.
+     */
+    public static class Entry {
+        private final long sequence;
+        private final Operation operation;
+        private final String value;
+
+        /**
+         * Constructor.
+         * @param sequence Sequence number, increasing by one per change.
+         * @param operation Kind of change.
+         * @param value City or search query the change applies to, or null.
+         */
+        @JsonCreator
+        public Entry(@JsonProperty("seq") long sequence, @JsonProperty("op") Operation operation,
+                @JsonProperty("value") String value) {
+            this.sequence = sequence;
+            this.operation = operation;
+            this.value = value;
+        }
+
+        /**
+         * Returns sequence number.
+         * @return sequence number.
+         */
+        @JsonProperty("seq")
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns kind of change.
+         * @return operation.
+         */
+        @JsonProperty("op")
+        public Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * Returns city or search query the change applies to.
+         * @return value, or null.
+         */
+        @JsonProperty("value")
+        public String getValue() {
+            return value;
+        }
+    }
+}
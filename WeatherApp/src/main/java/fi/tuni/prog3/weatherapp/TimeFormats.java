@@ -0,0 +1,141 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Helpers for turning API timestamps into the labels shown in the UI.
+ * All formatters are immutable and shared. Time and day labels are formatted once
+ * into lookup tables, so formatting a forecast row only computes an index.
+ */
+public final class TimeFormats {
+    /**
+     * Formatter for hour labels, e.g. "13:00".
+     */
+    public static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final String[] MINUTE_LABELS = new String[24 * 60];
+    private static final String[] DAY_NAMES = new String[7];
+    private static final Map<String, CachedZone> ZONES = new ConcurrentHashMap<>();
+
+    static {
+        for (int minute = 0; minute < MINUTE_LABELS.length; minute++) {
+            MINUTE_LABELS[minute] = LocalTime.ofSecondOfDay(minute * 60L).format(HOUR_FORMAT);
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            DAY_NAMES[day.ordinal()] = day.getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+        }
+    }
+
+    private TimeFormats() {
+        // static helpers
+    }
+
+    /**
+     * Returns the zone for the given id, resolving each id only once.
+     * @param timezone Zone id, e.g. "Europe/Helsinki".
+     * @return ZoneId for the id.
+     */
+    public static ZoneId zone(String timezone) {
+        return cachedZone(timezone).zone;
+    }
+
+    /**
+     * Returns the UTC offset of the zone at the given time.
+     * @param epochSecond Time in seconds since the epoch.
+     * @param timezone Zone id, e.g. "Europe/Helsinki".
+     * @return offset in seconds.
+     */
+    public static int offsetSeconds(long epochSecond, String timezone) {
+        return cachedZone(timezone).offsetSeconds(epochSecond);
+    }
+
+    private static CachedZone cachedZone(String timezone) {
+        return ZONES.computeIfAbsent(timezone, id -> new CachedZone(ZoneId.of(id)));
+    }
+
+    /**
+     * Returns the local time of day as "HH:mm".
+     * @param epochSecond Time in seconds since the epoch.
+     * @param offsetSeconds UTC offset of the location in seconds.
+     * @return hour label.
+     */
+    public static String hourLabel(long epochSecond, int offsetSeconds) {
+        long secondOfDay = Math.floorMod(epochSecond + offsetSeconds, (long) SECONDS_PER_DAY);
+        return MINUTE_LABELS[(int) (secondOfDay / 60)];
+    }
+
+    /**
+     * Returns the local time of day as "HH:mm" in the given zone.
+     * @param epochSecond Time in seconds since the epoch.
+     * @param timezone Zone id, e.g. "Europe/Helsinki".
+     * @return hour label.
+     */
+    public static String hourLabel(long epochSecond, String timezone) {
+        return hourLabel(epochSecond, offsetSeconds(epochSecond, timezone));
+    }
+
+    /**
+     * Returns the English name of the local weekday, e.g. "Monday".
+     * @param epochSecond Time in seconds since the epoch.
+     * @param offsetSeconds UTC offset of the location in seconds.
+     * @return day name.
+     */
+    public static String dayName(long epochSecond, int offsetSeconds) {
+        long epochDay = Math.floorDiv(epochSecond + offsetSeconds, (long) SECONDS_PER_DAY);
+        // 1970-01-01 was a Thursday, which is index 3 from Monday
+        return DAY_NAMES[(int) Math.floorMod(epochDay + 3, 7L)];
+    }
+
+    /**
+     * Zone with the offset of the last looked up time and the period it is valid for,
+     * i.e. until the next daylight saving transition.
+     */
+    private static class CachedZone {
+        private final ZoneId zone;
+        private volatile OffsetPeriod period = new OffsetPeriod(0, -1, 0);
+
+        CachedZone(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        int offsetSeconds(long epochSecond) {
+            OffsetPeriod current = period;
+            if (epochSecond >= current.from && epochSecond < current.until) {
+                return current.offset;
+            }
+
+            ZoneRules rules = zone.getRules();
+            Instant instant = Instant.ofEpochSecond(epochSecond);
+            ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            current = new OffsetPeriod(previous == null ? Long.MIN_VALUE : previous.toEpochSecond(),
+                    next == null ? Long.MAX_VALUE : next.toEpochSecond(),
+                    rules.getOffset(instant).getTotalSeconds());
+            period = current;
+            return current.offset;
+        }
+    }
+
+    private static class OffsetPeriod {
+        private final long from;
+        private final long until;
+        private final int offset;
+
+        OffsetPeriod(long from, long until, int offset) {
+            this.from = from;
+            this.until = until;
+            this.offset = offset;
+        }
+    }
+}
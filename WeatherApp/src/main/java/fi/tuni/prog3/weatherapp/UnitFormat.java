@@ -0,0 +1,86 @@
+package fi.tuni.prog3.weatherapp;
+
+/**
+ * Formats weather values for display in metric or imperial units.
+ * Loaded data is always kept in metric units (Celsius, m/s); conversion happens only
+ * here, when labels are rendered, so switching units never needs new data.
+ */
+public final class UnitFormat {
+    private static final double MPH_PER_METER_PER_SECOND = 2.237;
+
+    private UnitFormat() {
+        // static helpers
+    }
+
+    /**
+     * Converts celsius to fahrenheit.
+     * @param celsius celsius.
+     * @return fahrenheit.
+     */
+    public static double celsiusToFahrenheit(double celsius) {
+        return celsius * 9 / 5 + 32;
+    }
+
+    /**
+     * Converts meters per second to miles per hour.
+     * @param metersPerSecond speed in m/s.
+     * @return speed in mph.
+     */
+    public static double metersPerSecondToMph(double metersPerSecond) {
+        return metersPerSecond * MPH_PER_METER_PER_SECOND;
+    }
+
+    /**
+     * Returns a temperature rounded to whole degrees, e.g. "-3°C" or "27°F".
+     * @param celsius temperature in celsius.
+     * @param metric true for celsius, false for fahrenheit.
+     * @return temperature label.
+     */
+    public static String temperature(double celsius, boolean metric) {
+        if (metric) {
+            return Math.round(celsius) + "°C";
+        }
+        return Math.round(celsiusToFahrenheit(celsius)) + "°F";
+    }
+
+    /**
+     * Returns a temperature rounded to one decimal, e.g. "-2.6°C" or "27.3°F".
+     * @param celsius temperature in celsius.
+     * @param metric true for celsius, false for fahrenheit.
+     * @return temperature label.
+     */
+    public static String preciseTemperature(double celsius, boolean metric) {
+        if (metric) {
+            return roundToTenth(celsius) + "°C";
+        }
+        return roundToTenth(celsiusToFahrenheit(celsius)) + "°F";
+    }
+
+    /**
+     * Returns the maximum and minimum temperature of a day, e.g. "1°C / -3°C".
+     * @param maxCelsius maximum temperature in celsius.
+     * @param minCelsius minimum temperature in celsius.
+     * @param metric true for celsius, false for fahrenheit.
+     * @return min/max label.
+     */
+    public static String maxMin(double maxCelsius, double minCelsius, boolean metric) {
+        return temperature(maxCelsius, metric) + " / " + temperature(minCelsius, metric);
+    }
+
+    /**
+     * Returns a wind speed rounded to one decimal, e.g. "3.6m/s" or "8.1mph".
+     * @param metersPerSecond wind speed in m/s.
+     * @param metric true for m/s, false for mph.
+     * @return wind speed label.
+     */
+    public static String windSpeed(double metersPerSecond, boolean metric) {
+        if (metric) {
+            return roundToTenth(metersPerSecond) + "m/s";
+        }
+        return roundToTenth(metersPerSecondToMph(metersPerSecond)) + "mph";
+    }
+
+    private static double roundToTenth(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
@@ -26,15 +26,24 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import javafx.geometry.Pos;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import fi.tuni.prog3.weatherapp.iAPI.Coordinates;
 import fi.tuni.prog3.weatherapp.iAPI.CurrentCityWeather;
 import fi.tuni.prog3.weatherapp.iAPI.DailyForecast;
+import fi.tuni.prog3.weatherapp.iAPI.ForecastBundle;
 import fi.tuni.prog3.weatherapp.iAPI.HourlyForecast;
-import fi.tuni.prog3.weatherapp.ImplementAPI.ForecastNotFoundException;
 import fi.tuni.prog3.weatherapp.ImplementAPI.LocationNotFoundException;
-import fi.tuni.prog3.weatherapp.ImplementAPI.WeatherDataNotFoundException;
 
 /**
  * JavaFX Sisu
@@ -48,19 +57,28 @@ public class WeatherApp extends Application {
     private static final Insets COMPONENT_PADDING = new Insets(15);
     private static final int SPACING = 10;
     private static final int PREF_HEIGHT = 200;
+    private static final int FETCH_TIMEOUT_SECONDS = 10;
+    private static final long LAUNCH_NANOS = System.nanoTime();
+    private static final int[] ICON_SIZES = {30, 40, 200};
 
-    private final WeatherUI weatherUI = new WeatherUI();
+    private final StartupMetrics startupMetrics = new StartupMetrics(LAUNCH_NANOS);
+    private final WeatherUI weatherUI;
 
     /**
      * Default constructor for the WeatherApp class.
      * Initializes the application with default settings.
      */
     public WeatherApp() {
-        // no implementation
+        // Decode the weather icons and prime the JSON caches in the background while the UI is built
+        ImageHandler.preloadAsync(ICON_SIZES);
+        JsonMappers.warmUpAsync();
+        weatherUI = new WeatherUI();
     }
 
     /**
      * Starts the application.
+     * The window is shown right away with the last saved data, and fresh
+     * data is loaded in the background.
      * @param stage stage.
      */
     @Override
@@ -68,11 +86,21 @@ public class WeatherApp extends Application {
         try {
             weatherUI.initialize(stage);
             stage.show();
+            weatherUI.hydrate();
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Stops the application. Called on Platform.exit(), e.g. from the exit button.
+     * Stops the background refresh and writes the changes that have not been saved yet.
+     */
+    @Override
+    public void stop() {
+        weatherUI.close();
+    }
+
     /**
      * Launches the application.
      * @param args args.
@@ -95,10 +123,23 @@ public class WeatherApp extends Application {
         private TextField searchBar;
         private ListView<String> searchHistoryListView;
 
-        private ImplementAPI api = new ImplementAPI();
+        private CachingAPI api = new CachingAPI(new ImplementAPI());
         private WeatherDataStorage dataStorage = new WeatherDataStorage();
+        private SnapshotStore snapshotStore = new SnapshotStore(SnapshotStore.DEFAULT_FILE);
+
+        // Network calls run on these daemon threads, never on the JavaFX Application Thread
+        private final ExecutorService loader = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "weather-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final AtomicLong loadGeneration = new AtomicLong();
+        // Keeps the current city and the favorites warm in the api cache
+        private final RefreshScheduler refreshScheduler = new RefreshScheduler(api, this::onRefreshed);
 
         private boolean isMetric = true;
+        // Data currently on screen, in metric units; the unit labels are rendered from it
+        private WeatherSnapshot shownSnapshot = new WeatherSnapshot(null, null);
 
         /**
          * Constructor for WeatherUI.
@@ -136,23 +177,11 @@ public class WeatherApp extends Application {
                  this.dailyImages[i] = ImageHandler.createImageView("DEFAULT_IMAGE");
              } 
 
-            // Search for city to update components
-            String searchCity = "Tampere";
-            if (dataStorage.getCurrentCity() != null) {
-                searchCity = dataStorage.getCurrentCity();
-            }
-
-            // Look up the coordinates for the city
             try {
-                Coordinates loc = api.lookUpLocation(searchCity);
-                if (loc == null) {
-                    loc = api.lookUpLocation("Tampere");
-                }
-
-                // Update components
-                updateUI(loc);
-            } catch (LocationNotFoundException e) {
-                System.err.println("Error: " + e.getMessage());
+                api.setForecastHorizon(Integer.getInteger("weatherapp.forecastHours", ResponseDecoder.MAX_HOURS),
+                        Integer.getInteger("weatherapp.forecastDays", ResponseDecoder.MAX_DAYS));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error setting forecast horizon: " + e.getMessage());
             }
         }
 
@@ -172,108 +201,156 @@ public class WeatherApp extends Application {
             stage.setScene(scene);
             stage.setTitle("WeatherApp");
             stage.getIcons().add(new Image(getClass().getResourceAsStream("/38.png")));
+
+            // Record the first frame once the scene has been laid out for rendering
+            Runnable firstFrameListener = new Runnable() {
+                @Override
+                public void run() {
+                    startupMetrics.markFirstFrame();
+                    Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+                }
+            };
+            scene.addPostLayoutPulseListener(firstFrameListener);
+
+            // Show the last saved data until fresh data arrives
+            WeatherSnapshot lastSnapshot = snapshotStore.load();
+            if (lastSnapshot != null) {
+                updateUI(lastSnapshot);
+            }
         }
 
         /**
-         * Updates the UI.
-         * @throws WeatherDataNotFoundException if the weather data is not found.
-         * @throws ForecastNotFoundException if the forecast is not found.
-         * @throws ImageHandler.ImageNotFoundException if the image is not found.
-         * @throws ImageHandler.ImageLoadException if the image cannot be loaded.
-         * @throws Exception if an unexpected error occurs.
-         * @param coord coordinates.
+         * Stops the background refresh and saves the stored data.
          */
-        private void updateUI(Coordinates coord) {
-            try {
-                CurrentCityWeather currentCityWeather = api.weatherApiCall(coord);
+        private void close() {
+            refreshScheduler.close();
+            dataStorage.close();
+        }
 
-                // Update maininfo
-                cityName.setText(currentCityWeather.getName());
-                if (!isMetric) {
-                    currentTemp.setText(Math.round(celsiusToFahrenheit(currentCityWeather.getTemperature())) + "°F");
-                } else {
-                    currentTemp.setText(Math.round(currentCityWeather.getTemperature()) + "°C");
-                }
+        /**
+         * Starts loading fresh data for the current city in the background.
+         */
+        private void hydrate() {
+            // Search for city to update components
+            loadCity(currentCity(), false);
+            refreshScheduler.setCities(citiesToRefresh());
+        }
 
-                updateFavoriteGraphic(dataStorage.isFavoriteCity(cityName.getText()));
+        /**
+         * Returns the cities kept refreshed in the background: the current city and the favorites.
+         * @return names of the cities.
+         */
+        private List<String> citiesToRefresh() {
+            List<String> cities = new ArrayList<>(dataStorage.getFavoriteCities());
+            cities.add(currentCity());
+            return cities;
+        }
 
-                currentDescription.setText(currentCityWeather.getDescription());
-                updateImages(mainImg, currentCityWeather.getIcon());
+        /**
+         * Returns the stored current city, or Tampere if there is none.
+         * @return name of the current city.
+         */
+        private String currentCity() {
+            return dataStorage.getCurrentCity() != null ? dataStorage.getCurrentCity() : "Tampere";
+        }
 
-                if (isMetric) {
-                    feelsLike.setText(Math.round(currentCityWeather.getFeelsLike()) + "°C");
-                } else {
-                    feelsLike.setText(Math.round(celsiusToFahrenheit(currentCityWeather.getFeelsLike())) + "°F");
+        /**
+         * Shows refreshed data if it belongs to the city on screen. Runs on the refresh thread.
+         * The data is read from the api cache, so no request is made.
+         * @param city city that was refreshed.
+         */
+        private void onRefreshed(String city) {
+            Platform.runLater(() -> {
+                if (city.equals(currentCity())) {
+                    reloadCity(city, loadGeneration.get(), false);
                 }
+            });
+        }
 
-                if (isMetric) {
-                    currentWind.setText(Math.round(currentCityWeather.getWind() * 10.0) / 10.0  + "m/s");
-                } else {
-                    currentWind.setText(Math.round(metricToImperial(currentCityWeather.getWind()) * 10.0) / 10.0 + "mph");
+        /**
+         * Updates the UI from already loaded data. Must be called on the JavaFX Application Thread.
+         * Parts of the snapshot that failed to load are left as they were.
+         * @throws ImageHandler.ImageNotFoundException if the image is not found.
+         * @throws ImageHandler.ImageLoadException if the image cannot be loaded.
+         * @throws Exception if an unexpected error occurs.
+         * @param snapshot weather data to show.
+         */
+        private void updateUI(WeatherSnapshot snapshot) {
+            CurrentCityWeather currentCityWeather = snapshot.getCurrent();
+            ForecastBundle forecastBundle = snapshot.getForecasts();
+            shownSnapshot = new WeatherSnapshot(
+                    currentCityWeather != null ? currentCityWeather : shownSnapshot.getCurrent(),
+                    forecastBundle != null ? forecastBundle : shownSnapshot.getForecasts());
+            try {
+                if (currentCityWeather != null) {
+                    // Update maininfo
+                    cityName.setText(currentCityWeather.getName());
+                    updateFavoriteGraphic(dataStorage.isFavoriteCity(cityName.getText()));
+
+                    currentDescription.setText(currentCityWeather.getDescription());
+                    ImageHandler.updateImage(mainImg, currentCityWeather.getIcon());
+                    currentHumidity.setText(currentCityWeather.getHumidity() + "%");
                 }
 
-                currentHumidity.setText(currentCityWeather.getHumidity() + "%");
-
                 // Update hourly forecast
-                List<HourlyForecast> hourlyForecast = api.getHourlyForecast(coord);
-                int i = 0;
-                for (HourlyForecast hoursForecast : hourlyForecast) {
-                    if (i == 0) {
-                        rainMM.setText(hoursForecast.getPop() + "mm");
+                if (forecastBundle != null) {
+                    List<HourlyForecast> hourlyForecast = forecastBundle.getHourly();
+                    int i = 0;
+                    for (HourlyForecast hoursForecast : hourlyForecast) {
+                        if (i == 0) {
+                            rainMM.setText(hoursForecast.getPop() + "mm");
+                        }
+                        hourlyTimes[i].setText(hoursForecast.getTime());
+                        ImageHandler.updateImage(hourlyImages[i], hoursForecast.getIcon());
+                        i++;
                     }
-                    hourlyTimes[i].setText(hoursForecast.getTime());
-                    if (!isMetric) {
-                        double fahrenheit = celsiusToFahrenheit(hoursForecast.getTemperature());
-                        hourlyTemps[i].setText(Math.round(fahrenheit * 10.0) / 10.0 + "°F");
-                    } else {
-                        hourlyTemps[i].setText(hoursForecast.getTemperature() + "°C");
-                    }
-                    ImageHandler.updateImage(hourlyImages[i], hoursForecast.getIcon());
-                    i++;
-                }
 
-                // Update 7 day forecast
-                List<DailyForecast> dailyForecasts = api.getForecast(coord);
-                int j = 0;
-                for (DailyForecast daysForecast : dailyForecasts) {
-                    dayLabels[j].setText(daysForecast.getDate());
-                    dayWeathers[j].setText(daysForecast.getWeather());
-                    if (!isMetric) {
-                        dayMinMaxs[j].setText(Math.round(celsiusToFahrenheit(daysForecast.getMaxTemp())) + "°F / "
-                                + Math.round(celsiusToFahrenheit(daysForecast.getMinTemp())) + "°F");
-                    } else {
-                        dayMinMaxs[j].setText(daysForecast.getMaxTemp() + "°C / " + daysForecast.getMinTemp() + "°C");
+                    // Update 7 day forecast
+                    List<DailyForecast> dailyForecasts = forecastBundle.getDaily();
+                    int j = 0;
+                    for (DailyForecast daysForecast : dailyForecasts) {
+                        dayLabels[j].setText(daysForecast.getDate());
+                        dayWeathers[j].setText(daysForecast.getWeather());
+                        ImageHandler.updateImage(dailyImages[j], daysForecast.getIcon());
+                        j++;
                     }
-                    updateImages(dailyImages[j], daysForecast.getIcon());
-                    j++;
                 }
-            } catch (WeatherDataNotFoundException e) {
-                System.err.println("Error updating UI: " + e.getMessage());
-            } catch (ForecastNotFoundException e) {
-                System.err.println("Error updating UI: " + e.getMessage());
             } catch (ImageHandler.ImageNotFoundException | ImageHandler.ImageLoadException e) {
                 System.err.println("Error updating UI: " + e.getMessage());
             } catch (Exception e) {
                 System.err.println("Unexpected error updating UI: " + e.getMessage());
             }
+            renderUnits();
         }
 
         /**
-         * Converts celsius to fahrenheit.
-         * @param celsius celsius.
-         * @return fahrenheit.
+         * Renders the labels that depend on the selected units from the data on screen.
+         * Needs no network access, so it is also used when the units are switched.
+         * Must be called on the JavaFX Application Thread.
          */
-        private double celsiusToFahrenheit(double celsius) {
-            return celsius * 9 / 5 + 32;
-        }
+        private void renderUnits() {
+            CurrentCityWeather currentCityWeather = shownSnapshot.getCurrent();
+            if (currentCityWeather != null) {
+                currentTemp.setText(UnitFormat.temperature(currentCityWeather.getTemperature(), isMetric));
+                feelsLike.setText(UnitFormat.temperature(currentCityWeather.getFeelsLike(), isMetric));
+                currentWind.setText(UnitFormat.windSpeed(currentCityWeather.getWind(), isMetric));
+            }
 
-        /**
-         * Converts metric to imperial.
-         * @param metric metric.
-         * @return imperial.
-         */
-        private double metricToImperial(double metric) {
-            return metric * 2.237;
+            ForecastBundle forecastBundle = shownSnapshot.getForecasts();
+            if (forecastBundle != null) {
+                List<HourlyForecast> hourlyForecast = forecastBundle.getHourly();
+                for (int i = 0; i < hourlyForecast.size() && i < hourlyTemps.length; i++) {
+                    hourlyTemps[i].setText(UnitFormat.preciseTemperature(hourlyForecast.get(i).getTemperature(),
+                            isMetric));
+                }
+
+                List<DailyForecast> dailyForecasts = forecastBundle.getDaily();
+                for (int j = 0; j < dailyForecasts.size() && j < dayMinMaxs.length; j++) {
+                    DailyForecast daysForecast = dailyForecasts.get(j);
+                    dayMinMaxs[j].setText(UnitFormat.maxMin(daysForecast.getMaxTemp(), daysForecast.getMinTemp(),
+                            isMetric));
+                }
+            }
         }
 
         /**
@@ -322,12 +399,12 @@ public class WeatherApp extends Application {
                     changeUnit.setText("IMPERIAL");
 
                     isMetric = false;
-                    updateSearch(dataStorage.getCurrentCity());
+                    renderUnits();
                 } else {
                     changeUnit.setText("METRIC");
 
                     isMetric = true;
-                    updateSearch(dataStorage.getCurrentCity());
+                    renderUnits();
                 }
             });
 
@@ -364,10 +441,12 @@ public class WeatherApp extends Application {
                     updateFavoriteGraphic(false);
                     dataStorage.removeFavoriteCity(cityName.getText());
                     favorListView.getItems().remove(cityName.getText());
+                    refreshScheduler.setCities(citiesToRefresh());
                 } else {
                     dataStorage.addFavoriteCity(cityName.getText());
                     favorListView.getItems().add(cityName.getText());
                     updateFavoriteGraphic(true);
+                    refreshScheduler.setCities(citiesToRefresh());
                 }
             });
 
@@ -453,9 +532,7 @@ public class WeatherApp extends Application {
                 if (event.getCode() == KeyCode.ENTER) {
                     String searchQuery = searchBar.getText().trim();
                     if (!searchQuery.isEmpty()) {
-                        updateSearch(searchQuery);
-                        searchHistoryListView.getItems().clear();
-                        searchHistoryListView.getItems().addAll(dataStorage.getSearchHistory()); // Update the ListView
+                        updateSearch(searchQuery); // Updates the history ListView once loaded
                         searchHistoryListView.setVisible(false); // Close ListView after search
                     }
                     searchBar.clear();
@@ -653,44 +730,148 @@ public class WeatherApp extends Application {
 
         /**
          * Updates the UI based on the search query.
-         * @throws LocationNotFoundException if the location is not found.
-         * @throws WeatherDataNotFoundException if the weather data is not found.
-         * @throws Exception if an unexpected error occurs.
          * @param searchQuery search query.
          */
         private void updateSearch(String searchQuery) {
+            loadCity(searchQuery, true);
+        }
+
+        /**
+         * Loads the weather of the given city in the background and shows it when ready.
+         * Starting a new load supersedes the previous one: its remaining calls are skipped
+         * and its result is dropped.
+         * @param city city to load.
+         * @param recordSearch true if the city should be stored as the current city and in the search history.
+         */
+        private void loadCity(String city, boolean recordSearch) {
+            reloadCity(city, loadGeneration.incrementAndGet(), recordSearch);
+        }
+
+        /**
+         * Loads the weather of the given city as part of an existing load generation,
+         * so a search started meanwhile still supersedes it.
+         * @param city city to load.
+         * @param generation load generation this load belongs to.
+         * @param recordSearch true if the city should be stored as the current city and in the search history.
+         */
+        private void reloadCity(String city, long generation, boolean recordSearch) {
+            CompletableFuture.supplyAsync(() -> fetchSnapshot(city, generation), loader)
+                    .thenAccept(snapshot -> Platform.runLater(() -> {
+                        if (generation == loadGeneration.get()) {
+                            showSnapshot(city, snapshot, recordSearch);
+                        }
+                    }))
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        if (!(cause instanceof CancellationException)) {
+                            System.err.println("Error: " + cause.getMessage());
+                        }
+                        return null;
+                    });
+        }
+
+        /**
+         * Fetches all data for the given city. Runs on a loader thread.
+         * The current weather and the forecasts are fetched at the same time;
+         * if one of them fails, the snapshot is returned without it.
+         * @throws CompletionException if the location is not found or nothing could be loaded.
+         * @throws CancellationException if a newer load has been started.
+         * @param city city to load.
+         * @param generation load generation this fetch belongs to.
+         * @return weather data for the city.
+         */
+        private WeatherSnapshot fetchSnapshot(String city, long generation) {
+            Coordinates coord;
             try {
-                Coordinates coord = api.lookUpLocation(searchQuery);
-                if (coord == null) {
-                    System.out.println("City was not found");
-                    return;
+                coord = api.lookUpLocation(city);
+            } catch (LocationNotFoundException e) {
+                throw new CompletionException(e);
+            }
+            checkNotSuperseded(generation);
+
+            CompletableFuture<CurrentCityWeather> currentCityWeather = fetchAsync(() -> api.weatherApiCall(coord));
+            CompletableFuture<ForecastBundle> forecastBundle = fetchAsync(() -> api.getForecastBundle(coord));
+
+            WeatherSnapshot snapshot = new WeatherSnapshot(joinFetch(currentCityWeather), joinFetch(forecastBundle));
+            if (snapshot.getCurrent() == null && snapshot.getForecasts() == null) {
+                throw new CompletionException(new IllegalStateException("No weather data found for the city: " + city));
+            }
+            return snapshot;
+        }
+
+        /**
+         * Runs one API call on a loader thread with a timeout.
+         * @param <T> type of the result.
+         * @param call API call to run.
+         * @return future result of the call.
+         */
+        private <T> CompletableFuture<T> fetchAsync(Callable<T> call) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
                 }
+            }, loader).orTimeout(FETCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
 
-                CurrentCityWeather currentCityWeather = api.weatherApiCall(coord);
-                
-                // Add search to history and current jsons
-                dataStorage.setCurrentCity(searchQuery);
-                dataStorage.addSearchToHistory(currentCityWeather.getName()); // Update the data storage
+        /**
+         * Waits for one API call started with fetchAsync.
+         * @param <T> type of the result.
+         * @param future future result of the call.
+         * @return result of the call, or null if it failed or timed out.
+         */
+        private <T> T joinFetch(CompletableFuture<T> future) {
+            try {
+                return future.join();
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TimeoutException) {
+                    System.err.println("Error: API call timed out");
+                } else {
+                    System.err.println("Error: " + cause.getMessage());
+                }
+                return null;
+            }
+        }
 
-                updateUI(coord);
-            } catch (LocationNotFoundException e) {
-                System.err.println("Error: " + e.getMessage());
-            } catch (WeatherDataNotFoundException e) {
-                System.err.println("Error: " + e.getMessage());
-            } catch (Exception e) {
-                System.err.println("Unexpected error: " + e.getMessage());
+        /**
+         * Throws if a newer load has been started after the given one.
+         * @param generation load generation to check.
+         */
+        private void checkNotSuperseded(long generation) {
+            if (generation != loadGeneration.get()) {
+                throw new CancellationException("Superseded by a newer search");
             }
         }
 
         /**
-         * Updates the images.
-         * @param img image.
-         * @param link link for the image.
+         * Stores the search and shows the loaded data. Runs on the JavaFX Application Thread.
+         * @param city city that was loaded.
+         * @param snapshot loaded weather data.
+         * @param recordSearch true if the city should be stored as the current city and in the search history.
          */
-        private void updateImages(ImageView img, String link) {
-            Platform.runLater(() -> {
-                ImageHandler.updateImage(img, link);
-            });
+        private void showSnapshot(String city, WeatherSnapshot snapshot, boolean recordSearch) {
+            if (!recordSearch && !city.equals(currentCity())) {
+                // Background refresh of a city a search has since replaced
+                return;
+            }
+            if (recordSearch) {
+                // Add search to history and current jsons
+                dataStorage.setCurrentCity(city);
+                dataStorage.addSearchToHistory(snapshot.getCurrent() != null ? snapshot.getCurrent().getName() : city);
+                if (searchHistoryListView != null) {
+                    searchHistoryListView.getItems().setAll(dataStorage.getSearchHistory());
+                }
+                refreshScheduler.setCities(citiesToRefresh());
+            }
+
+            updateUI(snapshot);
+            startupMetrics.markFreshData();
+            if (snapshot.getCurrent() != null && snapshot.getForecasts() != null) {
+                // Only the data shown is saved, so a superseded load never replaces it
+                CompletableFuture.runAsync(() -> snapshotStore.save(snapshot), loader);
+            }
         }
 
         /**
@@ -0,0 +1,59 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Main weather condition groups of the OpenWeatherMap API ("main" field of a weather entry).
+ * Forecasts store the condition as one of these constants instead of their own String copy.
+ */
+public enum WeatherCondition {
+    THUNDERSTORM("Thunderstorm"),
+    DRIZZLE("Drizzle"),
+    RAIN("Rain"),
+    SNOW("Snow"),
+    MIST("Mist"),
+    SMOKE("Smoke"),
+    HAZE("Haze"),
+    DUST("Dust"),
+    FOG("Fog"),
+    SAND("Sand"),
+    ASH("Ash"),
+    SQUALL("Squall"),
+    TORNADO("Tornado"),
+    CLEAR("Clear"),
+    CLOUDS("Clouds"),
+    UNKNOWN("");
+
+    private static final Map<String, WeatherCondition> BY_API_NAME = new HashMap<>();
+
+    static {
+        for (WeatherCondition condition : values()) {
+            BY_API_NAME.put(condition.apiName, condition);
+        }
+    }
+
+    private final String apiName;
+
+    WeatherCondition(String apiName) {
+        this.apiName = apiName;
+    }
+
+    /**
+     * Returns the name used by the API, e.g. "Clouds".
+     * @return API name of the condition.
+     */
+    public String getApiName() {
+        return apiName;
+    }
+
+    /**
+     * Returns the condition for the given API name.
+     * @param apiName API name, e.g. "Clouds".
+     * @return matching condition, or UNKNOWN if the name is not known.
+     */
+    public static WeatherCondition fromApiName(String apiName) {
+        WeatherCondition condition = apiName == null ? null : BY_API_NAME.get(apiName);
+        return condition == null ? UNKNOWN : condition;
+    }
+}
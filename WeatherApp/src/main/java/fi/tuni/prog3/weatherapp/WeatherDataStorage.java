@@ -1,48 +1,146 @@
 package fi.tuni.prog3.weatherapp;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.core.type.TypeReference;
-
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Class for storing weather data.
+ * The data files are kept in the DataDirectory. Favorites, the current city and the search history are kept together in one
+ * compact, versioned state file, read with a single read at startup. State saved by
+ * older versions in three separate files is migrated on the first start.
+ * Each change is appended to a StateJournal instead of rewriting the state file; the
+ * journal is replayed on startup and compacted into the state file after a number of
+ * changes and on close(). Changes are written to the journal after WRITE_DELAY, so a
+ * burst of changes costs one write. Call close() before exiting.
  */
-public class WeatherDataStorage implements iReadAndWriteToFile {
+public class WeatherDataStorage implements iReadAndWriteToFile, AutoCloseable {
     private static final String FILE_SEPARATOR = File.separator;
-    private static final String DATA_DIRECTORY = "src" + FILE_SEPARATOR + "main" + FILE_SEPARATOR + "resources" + FILE_SEPARATOR + "weatherData" + FILE_SEPARATOR;
+    static final String DATA_DIRECTORY = DataDirectory.get() + FILE_SEPARATOR;
+
+    /**
+     * Name of the state file in the data directory.
+     */
+    static final String STATE_FILE = "state.json";
+
+    /**
+     * Name of the journal file in the data directory.
+     */
+    static final String JOURNAL_FILE = "state.journal";
+
+    /**
+     * Default number of searches kept in the history.
+     */
+    public static final int DEFAULT_HISTORY_LIMIT = 10;
+
+    /**
+     * Default number of journaled changes after which the journal is compacted.
+     */
+    public static final int DEFAULT_COMPACT_THRESHOLD = 500;
 
-    private static final String FAVORITE_CITIES_FILE = DATA_DIRECTORY + "favorite_cities.json";
-    private static final String CURRENT_CITY_FILE = DATA_DIRECTORY + "current_city.json";
-    private static final String SEARCH_HISTORY_FILE = DATA_DIRECTORY + "search_history.json";
+    /**
+     * How long changes wait for more before they are written to the journal.
+     */
+    static final Duration WRITE_DELAY = Duration.ofMillis(500);
 
-    private List<String> favoriteCities = new ArrayList<>();
+    // Files used before the state file
+    private static final String FAVORITE_CITIES_FILE = "favorite_cities.json";
+    private static final String CURRENT_CITY_FILE = "current_city.json";
+    private static final String SEARCH_HISTORY_FILE = "search_history.json";
+
+    private final String directory;
+    private final String stateFileName;
+    private final int historyLimit;
+    private final int compactThreshold;
+    private final Set<String> favoriteCities = new LinkedHashSet<>();
     private String currentCity;
-    private List<String> searchHistory = new ArrayList<>();
+    // Oldest first, so adding a search and dropping the oldest are both O(1)
+    private final Set<String> searchHistory = new LinkedHashSet<>();
+    private final StateJournal journal;
+    private long sequence;
+    private int journaledChanges;
 
     /**
      * Constructor.
-     * Initializes the WeatherDataStorage object by reading data from files.
+     * Initializes the WeatherDataStorage object by reading data from the default data directory.
+     * If it holds no state yet, the state is imported from the legacy directory.
      */
     public WeatherDataStorage() {
+        this(DATA_DIRECTORY, DEFAULT_HISTORY_LIMIT, DEFAULT_COMPACT_THRESHOLD, DataDirectory.LEGACY.toFile());
+    }
+
+    /**
+     * Constructor.
+     * Initializes the WeatherDataStorage object by reading data from the given directory.
+     * @param directory Directory of the state file.
+     */
+    public WeatherDataStorage(String directory) {
+        this(directory, DEFAULT_HISTORY_LIMIT, DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Constructor.
+     * Initializes the WeatherDataStorage object by reading data from the given directory.
+     * @param directory Directory of the state file.
+     * @param historyLimit Number of searches kept in the history.
+     * @param compactThreshold Number of journaled changes after which the journal is compacted.
+     */
+    public WeatherDataStorage(String directory, int historyLimit, int compactThreshold) {
+        this(directory, historyLimit, compactThreshold, null);
+    }
+
+    private WeatherDataStorage(String directory, int historyLimit, int compactThreshold, File importDirectory) {
+        this.directory = directory.endsWith(FILE_SEPARATOR) ? directory : directory + FILE_SEPARATOR;
+        this.stateFileName = this.directory + STATE_FILE;
+        this.historyLimit = historyLimit;
+        this.compactThreshold = compactThreshold;
+        Path journalFile = Path.of(this.directory + JOURNAL_FILE);
+        this.journal = new StateJournal(journalFile, Path.of(stateFileName), AtomicFiles.DEFAULT_DURABILITY,
+                WRITE_DELAY);
         try {
-            String favoritesJson = readFromFile(FAVORITE_CITIES_FILE);
-            if (favoritesJson != null) {
-                ObjectMapper favoritesMapper = new ObjectMapper();
-                favoriteCities = favoritesMapper.readValue(favoritesJson, new TypeReference<List<String>>() {});
-            }
+            // Create the data directory once, so saving the state needs no checks
+            Files.createDirectories(Path.of(this.directory));
+            AtomicFiles.deleteStaleTemps(Path.of(this.directory));
 
-            currentCity = readFromFile(CURRENT_CITY_FILE);
+            AppState state = readState(new File(stateFileName));
+            if (state == null) {
+                state = migrateLegacyFiles();
+            }
+            if (state == null && importDirectory != null) {
+                state = importState(importDirectory);
+            }
+            if (state == null) {
+                state = AppState.EMPTY;
+            }
+            favoriteCities.addAll(state.getFavorites());
+            currentCity = state.getCurrentCity();
+            List<String> history = state.getHistory();
+            for (int i = history.size() - 1; i >= 0; i--) {
+                apply(StateJournal.Operation.ADD_SEARCH, history.get(i));
+            }
+            sequence = state.getSequence();
 
-            String historyJson = readFromFile(SEARCH_HISTORY_FILE);
-            if (historyJson != null) {
-                ObjectMapper historyMapper = new ObjectMapper();
-                searchHistory = historyMapper.readValue(historyJson, new TypeReference<List<String>>() {});
+            // Entries up to the state's sequence number were saved in the state file before a crash
+            for (StateJournal.Entry entry : StateJournal.read(journalFile)) {
+                if (entry.getSequence() > sequence) {
+                    apply(entry.getOperation(), entry.getValue());
+                    sequence = entry.getSequence();
+                }
+            }
+            // Left over from a run that was not closed; compact, which also drops a partly written last line
+            if (Files.exists(journalFile) && Files.size(journalFile) > 0) {
+                compact();
             }
         } catch (FileNotFoundException e) {
             System.err.println("File not found: " + e.getMessage());
@@ -53,12 +151,95 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
         }
     }
 
+    /**
+     * Reads a state file.
+     * @param file State file.
+     * @throws IOException If the file cannot be read or parsed.
+     * @return the state, or null if the file does not exist.
+     */
+    static AppState readState(File file) throws IOException {
+        try {
+            AppState state = JsonMappers.readFile(JsonMappers.STATE_READER, file);
+            if (state.getVersion() > AppState.CURRENT_VERSION) {
+                System.err.println("State file version " + state.getVersion() + " is newer than supported; "
+                        + "reading the known fields");
+            }
+            return state;
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the state from the files used before the state file, saves it as a state
+     * file and removes the old files.
+     * @throws IOException If the old files cannot be read or the state file cannot be written.
+     * @return the migrated state, or null if there are no old files.
+     */
+    private AppState migrateLegacyFiles() throws IOException {
+        AppState state = readLegacyFiles(new File(directory));
+        if (state == null) {
+            return null;
+        }
+
+        JsonMappers.writeFile(new File(stateFileName), state, false);
+        Files.deleteIfExists(Path.of(directory + FAVORITE_CITIES_FILE));
+        Files.deleteIfExists(Path.of(directory + CURRENT_CITY_FILE));
+        Files.deleteIfExists(Path.of(directory + SEARCH_HISTORY_FILE));
+        return state;
+    }
+
+    /**
+     * Copies the state from a directory used by an older version, in either file format,
+     * to the state file. The old files are left in place.
+     * @param importDirectory Directory to import from.
+     * @throws IOException If the old files cannot be read or the state file cannot be written.
+     * @return the imported state, or null if there is nothing to import.
+     */
+    private AppState importState(File importDirectory) throws IOException {
+        if (importDirectory.getAbsoluteFile().equals(new File(directory).getAbsoluteFile())) {
+            return null;
+        }
+        AppState state = readState(new File(importDirectory, STATE_FILE));
+        if (state == null) {
+            state = readLegacyFiles(importDirectory);
+        }
+        if (state != null) {
+            System.err.println("Importing saved state from " + importDirectory.getAbsolutePath());
+            JsonMappers.writeFile(new File(stateFileName), state, false);
+        }
+        return state;
+    }
+
+    /**
+     * Reads the state from the files used before the state file.
+     * @param legacyDirectory Directory of the old files.
+     * @throws IOException If the old files cannot be read.
+     * @return the state, or null if there are no old files.
+     */
+    private static AppState readLegacyFiles(File legacyDirectory) throws IOException {
+        File favoritesFile = new File(legacyDirectory, FAVORITE_CITIES_FILE);
+        File currentFile = new File(legacyDirectory, CURRENT_CITY_FILE);
+        File historyFile = new File(legacyDirectory, SEARCH_HISTORY_FILE);
+        if (!favoritesFile.exists() && !currentFile.exists() && !historyFile.exists()) {
+            return null;
+        }
+
+        List<String> favorites = favoritesFile.exists()
+                ? JsonMappers.STRING_LIST_READER.readValue(favoritesFile) : List.of();
+        Object current = currentFile.exists() ? JsonMappers.VALUE_READER.readValue(currentFile) : null;
+        List<String> history = historyFile.exists()
+                ? JsonMappers.STRING_LIST_READER.readValue(historyFile) : List.of();
+        return new AppState(AppState.CURRENT_VERSION, 0, favorites,
+                current instanceof String ? (String) current : null, history);
+    }
+
     /**
      * Returns the list of favorite cities.
-     * @return List of favorite cities.
+     * @return List of favorite cities, a copy.
      */
     public List<String> getFavoriteCities() {
-        return favoriteCities;
+        return new ArrayList<>(favoriteCities);
     }
 
     /**
@@ -67,10 +248,7 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
      * @return true if the city is a favorite, false otherwise.
      */
     public boolean isFavoriteCity(String city) {
-        if (favoriteCities.contains(city)) {
-            return true;
-        } 
-        return false;
+        return favoriteCities.contains(city);
     }
 
     /**
@@ -83,10 +261,12 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
 
     /**
      * Returns the search history.
-     * @return Search history.
+     * @return Search history, newest first, a copy.
      */
     public List<String> getSearchHistory() {
-        return searchHistory;
+        List<String> history = new ArrayList<>(searchHistory);
+        Collections.reverse(history);
+        return history;
     }
 
     /**
@@ -94,24 +274,16 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
      * @param city City to add.
      */
     public void addFavoriteCity(String city) {
-        if (!favoriteCities.contains(city)) {
-            favoriteCities.add(city);
-            saveDataToFile(FAVORITE_CITIES_FILE, favoriteCities);
-        }
+        record(StateJournal.Operation.ADD_FAVORITE, city);
     }
 
-
-
     /**
      * Removes the given city from the list of favorite cities.
      * @param city City to remove.
      */
     public void removeFavoriteCity(String city) {
         try {
-            if (favoriteCities.contains(city)) {
-                favoriteCities.remove(city);
-                saveDataToFile(FAVORITE_CITIES_FILE, favoriteCities);
-            }
+            record(StateJournal.Operation.REMOVE_FAVORITE, city);
         } catch (Exception e) {
             System.err.println("Error removing city from favorites: " + e.getMessage());
         }
@@ -123,8 +295,7 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
      */
     public void setCurrentCity(String city) {
         try {
-            currentCity = city;
-            saveDataToFile(CURRENT_CITY_FILE, currentCity);
+            record(StateJournal.Operation.SET_CURRENT, city);
         } catch (Exception e) {
             System.err.println("Error setting current city: " + e.getMessage());
         }
@@ -135,51 +306,106 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
      * @param searchQuery Search query to add.
      */
     public void addSearchToHistory(String searchQuery) {
-        // Check if the search query is already in the history
-        if (searchHistory.contains(searchQuery)) {
-            return; 
-        }
+        record(StateJournal.Operation.ADD_SEARCH, searchQuery);
+    }
 
-        if (searchHistory.size() >= 10) {
-            // Remove the oldest entry if the history has reached its maximum size
-            searchHistory.remove(9);
-        }
+    /**
+     * Clears the search history.
+     */
+    public void clearSearchHistory() {
+        record(StateJournal.Operation.CLEAR_HISTORY, null);
+    }
 
-        searchHistory.add(0, searchQuery);
+    /**
+     * Writes all changes that have not been saved yet.
+     */
+    public void flush() {
+        journal.flush();
+    }
 
-        saveDataToFile(SEARCH_HISTORY_FILE, searchHistory);
+    /**
+     * Compacts the journal into the state file and stops the background writer.
+     */
+    @Override
+    public void close() {
+        if (journaledChanges > 0) {
+            compact();
+        }
+        journal.close();
     }
 
     /**
-     * Clears the search history.
+     * Applies a change and appends it to the journal if it changed the state.
+     * @param operation Kind of change.
+     * @param value City or search query, or null.
      */
-    public void clearSearchHistory() {
-        searchHistory.clear();
-        saveDataToFile(SEARCH_HISTORY_FILE, searchHistory);
+    private void record(StateJournal.Operation operation, String value) {
+        if (!apply(operation, value)) {
+            return;
+        }
+        journal.append(new StateJournal.Entry(++sequence, operation, value));
+        if (++journaledChanges >= compactThreshold) {
+            compact();
+        }
     }
 
     /**
-     * Saves the given data to the given file.
-     * @param fileName Name of the file to save the data to.
-     * @param data Data to save.
+     * Applies a change to the state in memory.
+     * @param operation Kind of change.
+     * @param value City or search query, or null.
+     * @return true if the state changed.
      */
-    private void saveDataToFile(String fileName, Object data) {
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-            File file = new File(fileName);
-    
-            if (!file.exists()) {
-                file.getParentFile().mkdirs();
-                file.createNewFile();
-            }
-    
-            objectMapper.writeValue(file, data);
-        } catch (IOException e) {
-            System.err.println("Error saving data to file: " + e.getMessage());
+    private boolean apply(StateJournal.Operation operation, String value) {
+        switch (operation) {
+            case ADD_FAVORITE:
+                return favoriteCities.add(value);
+            case REMOVE_FAVORITE:
+                return favoriteCities.remove(value);
+            case SET_CURRENT:
+                if (Objects.equals(currentCity, value)) {
+                    return false;
+                }
+                currentCity = value;
+                return true;
+            case ADD_SEARCH:
+                if (!searchHistory.add(value)) {
+                    return false;
+                }
+                // Remove the oldest entries if the history has reached its maximum size
+                Iterator<String> oldest = searchHistory.iterator();
+                while (searchHistory.size() > historyLimit) {
+                    oldest.next();
+                    oldest.remove();
+                }
+                return true;
+            case CLEAR_HISTORY:
+                if (searchHistory.isEmpty()) {
+                    return false;
+                }
+                searchHistory.clear();
+                return true;
+            default:
+                return false;
         }
     }
 
+    /**
+     * Saves the state to the state file and empties the journal, in the background.
+     */
+    private void compact() {
+        journal.compact(toState());
+        journaledChanges = 0;
+    }
+
+    /**
+     * Returns a copy of the current state.
+     * @return the state.
+     */
+    private AppState toState() {
+        return new AppState(AppState.CURRENT_VERSION, sequence, getFavoriteCities(), currentCity,
+                getSearchHistory());
+    }
+
     /**
      * Reads JSON from the given file.
      * @param fileName name of the file to read from.
@@ -193,14 +419,12 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
             File file = new File(fileName);
     
             if (file.exists()) {
-                ObjectMapper objectMapper = new ObjectMapper();
-                TypeReference<?> typeReference = new TypeReference<>() {};
-                Object data = objectMapper.readValue(file, typeReference);
+                Object data = JsonMappers.VALUE_READER.readValue(file);
     
                 if (data instanceof String) {
                     return (String) data;
                 } else if (data instanceof List) {
-                    return objectMapper.writeValueAsString(data);
+                    return JsonMappers.WRITER.writeValueAsString(data);
                 }
             }
         } catch (FileNotFoundException e) {
@@ -214,15 +438,17 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
     }
 
     /**
-     * Writes the data to the given file.
+     * Writes the data to the given file in the data directory: the whole state for the
+     * state file, or the favorites, current city or search history for their old files.
      * @param fileName Name of the file to write to.
      * @return true if the write was successful, otherwise false.
      */
     @Override
     public boolean writeToFile(String fileName) {
         try {
-            String filePath = DATA_DIRECTORY + fileName;
-            saveDataToFile(filePath, getDataForFileName(fileName));
+            boolean state = STATE_FILE.equals(fileName);
+            Object data = state ? toState() : getDataForFileName(fileName);
+            JsonMappers.writeFile(new File(directory + fileName), data, !state);
             return true;
         } catch (Exception e) {
             System.err.println("Unexpected error writing data to file: " + e.getMessage());
@@ -231,21 +457,20 @@ public class WeatherDataStorage implements iReadAndWriteToFile {
     }
 
     /**
-     * Returns the data for the given file name.
+     * Returns the data for the given old file name.
      * @param fileName Name of the file to get the data for.
      * @throws UnsupportedOperationException if the given file name is not supported.
      * @return Data for the given file name.
      */
     private Object getDataForFileName(String fileName) {
         if (FAVORITE_CITIES_FILE.equals(fileName)) {
-            return favoriteCities;
+            return getFavoriteCities();
         } else if (CURRENT_CITY_FILE.equals(fileName)) {
             return currentCity;
         } else if (SEARCH_HISTORY_FILE.equals(fileName)) {
-            return searchHistory;
+            return getSearchHistory();
         } else {
             throw new UnsupportedOperationException("Unsupported file name: " + fileName);
         }
     }
 }
-
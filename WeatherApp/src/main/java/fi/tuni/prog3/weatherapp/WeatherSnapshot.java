@@ -0,0 +1,44 @@
+package fi.tuni.prog3.weatherapp;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import fi.tuni.prog3.weatherapp.iAPI.CurrentCityWeather;
+import fi.tuni.prog3.weatherapp.iAPI.ForecastBundle;
+
+/**
+ * Class for storing all weather data shown for one city.
+ * Filled in the background and handed to the UI in one piece.
+ */
+public class WeatherSnapshot {
+    private final CurrentCityWeather current;
+    private final ForecastBundle forecasts;
+
+    /**
+     * Constructor.
+     * @param current Current weather.
+     * @param forecasts Hourly and daily forecasts.
+     */
+    @JsonCreator
+    public WeatherSnapshot(@JsonProperty("current") CurrentCityWeather current,
+            @JsonProperty("forecasts") ForecastBundle forecasts) {
+        this.current = current;
+        this.forecasts = forecasts;
+    }
+
+    /**
+     * Returns current weather.
+     * @return current weather.
+     */
+    public CurrentCityWeather getCurrent() {
+        return current;
+    }
+
+    /**
+     * Returns hourly and daily forecasts.
+     * @return forecasts.
+     */
+    public ForecastBundle getForecasts() {
+        return forecasts;
+    }
+}
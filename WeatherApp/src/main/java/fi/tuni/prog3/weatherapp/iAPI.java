@@ -7,6 +7,9 @@ package fi.tuni.prog3.weatherapp;
 import java.util.List;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import fi.tuni.prog3.weatherapp.ImplementAPI.ForecastNotFoundException;
 import fi.tuni.prog3.weatherapp.ImplementAPI.LocationNotFoundException;
@@ -14,6 +17,11 @@ import fi.tuni.prog3.weatherapp.ImplementAPI.WeatherDataNotFoundException;
 
 /**
  * Interface for extracting data from the OpenWeatherMap API.
+ * The data classes are immutable and bound by Jackson through their annotated constructors.
+ * Conditions are stored as WeatherCondition constants, keeping the API's own name only
+ * for conditions WeatherCondition does not list, and the other repeating strings
+ * (icons, descriptions, times) are interned, so forecasts share them instead of each
+ * holding its own copy.
  */
 public interface iAPI {
     /**
@@ -33,7 +41,8 @@ public interface iAPI {
          * @param latitude latitude
          * @param longitude longitude
          */
-        public Coordinates(double latitude, double longitude) {
+        @JsonCreator
+        public Coordinates(@JsonProperty("latitude") double latitude, @JsonProperty("longitude") double longitude) {
             this.latitude = latitude;
             this.longitude = longitude;
         }
@@ -80,15 +89,17 @@ public interface iAPI {
      * Class for storing current weather data.
      */
     public class CurrentCityWeather {
-        private String name;
-        private Coordinates coord;
-        private String weather;
-        private String description;
-        private double temperature;
-        private String icon;
-        private double feelsLike;
-        private double wind;
-        private int humidity;
+        private final String name;
+        private final Coordinates coord;
+        private final WeatherCondition condition;
+        // API name of a condition WeatherCondition does not list, otherwise null
+        private final String unlistedWeather;
+        private final String description;
+        private final double temperature;
+        private final String icon;
+        private final double feelsLike;
+        private final double wind;
+        private final int humidity;
 
         /**
          * Constructor.
@@ -102,13 +113,19 @@ public interface iAPI {
          * @param wind Wind speed.
          * @param humidity Humidity.
          */
-        public CurrentCityWeather(Coordinates coord, String name, String weather, String description, double temperature, String icon, double feelsLike, double wind, int humidity) {
+        @JsonCreator
+        public CurrentCityWeather(@JsonProperty("coordinates") Coordinates coord, @JsonProperty("name") String name,
+                @JsonProperty("weather") String weather, @JsonProperty("description") String description,
+                @JsonProperty("temperature") double temperature, @JsonProperty("icon") String icon,
+                @JsonProperty("feelsLike") double feelsLike, @JsonProperty("wind") double wind,
+                @JsonProperty("humidity") int humidity) {
             this.coord = coord;
             this.name = name;
-            this.weather = weather;
-            this.description = description;
+            this.condition = WeatherCondition.fromApiName(weather);
+            this.unlistedWeather = unlistedName(condition, weather);
+            this.description = intern(description);
             this.temperature = temperature;
-            this.icon = icon;
+            this.icon = intern(icon);
             this.feelsLike = feelsLike;
             this.wind = wind;
             this.humidity = humidity;
@@ -151,7 +168,16 @@ public interface iAPI {
          * @return weather.
          */
         public String getWeather() {
-            return weather;
+            return unlistedWeather != null ? unlistedWeather : condition.getApiName();
+        }
+
+        /**
+         * Returns weather condition.
+         * @return weather condition.
+         */
+        @JsonIgnore
+        public WeatherCondition getCondition() {
+            return condition;
         }
 
         /**
@@ -191,12 +217,14 @@ public interface iAPI {
      * Class for storing daily forecast data.
      */
     public class DailyForecast {
-        private String date;
-        private String weather;
-        private String description;
-        private int min;
-        private int max;
-        private String icon;
+        private final String date;
+        private final WeatherCondition condition;
+        // API name of a condition WeatherCondition does not list, otherwise null
+        private final String unlistedWeather;
+        private final String description;
+        private final double min;
+        private final double max;
+        private final String icon;
 
         /**
          * Constructor.
@@ -207,13 +235,17 @@ public interface iAPI {
          * @param min Minimum temperature.
          * @param max Maximum temperature.
          */
-        public DailyForecast(String date, String icon, String weather, String description, int min, int max) {
-            this.date = date;
-            this.weather = weather;
-            this.description = description;
+        @JsonCreator
+        public DailyForecast(@JsonProperty("date") String date, @JsonProperty("icon") String icon,
+                @JsonProperty("weather") String weather, @JsonProperty("description") String description,
+                @JsonProperty("minTemp") double min, @JsonProperty("maxTemp") double max) {
+            this.date = intern(date);
+            this.condition = WeatherCondition.fromApiName(weather);
+            this.unlistedWeather = unlistedName(condition, weather);
+            this.description = intern(description);
             this.min = min;
             this.max = max;
-            this.icon = icon;
+            this.icon = intern(icon);
         }
 
         /**
@@ -237,7 +269,16 @@ public interface iAPI {
          * @return weather.
          */
         public String getWeather() {
-            return weather;
+            return unlistedWeather != null ? unlistedWeather : condition.getApiName();
+        }
+
+        /**
+         * Returns weather condition.
+         * @return weather condition.
+         */
+        @JsonIgnore
+        public WeatherCondition getCondition() {
+            return condition;
         }
 
         /**
@@ -252,7 +293,7 @@ public interface iAPI {
          * Returns minimum temperature.
          * @return minimum temperature.
          */
-        public int getMinTemp() {
+        public double getMinTemp() {
             return min;
         }
 
@@ -260,37 +301,23 @@ public interface iAPI {
          * Returns maximum temperature.
          * @return maximum temperature.
          */
-        public int getMaxTemp() {
+        public double getMaxTemp() {
             return max;
         }
-
-        /**
-         * Sets minimum temperature.
-         * @param min minimum temperature.
-         */
-        public void setMinTemp(int min) {
-            this.min = min;
-        }
-
-        /**
-         * Sets maximum temperature.
-         * @param max maximum temperature.
-         */
-        public void setMaxTemp(int max) {
-            this.max = max;
-        }
     }
 
     /**
      * Class for storing hourly forecast data.
      */
     public class HourlyForecast {
-        private String time;
-        private String weather;
-        private String description;
-        private double temperature;
-        private String icon;
-        private double pop;
+        private final String time;
+        private final WeatherCondition condition;
+        // API name of a condition WeatherCondition does not list, otherwise null
+        private final String unlistedWeather;
+        private final String description;
+        private final double temperature;
+        private final String icon;
+        private final double pop;
 
         /**
          * Constructor.
@@ -301,12 +328,16 @@ public interface iAPI {
          * @param temperature Temperature.
          * @param pop Probability of precipitation.
          */
-        public HourlyForecast(String time, String icon, String weather, String description, double temperature, double pop) {
-            this.time = time;
-            this.weather = weather;
-            this.description = description;
+        @JsonCreator
+        public HourlyForecast(@JsonProperty("time") String time, @JsonProperty("icon") String icon,
+                @JsonProperty("weather") String weather, @JsonProperty("description") String description,
+                @JsonProperty("temperature") double temperature, @JsonProperty("pop") double pop) {
+            this.time = intern(time);
+            this.condition = WeatherCondition.fromApiName(weather);
+            this.unlistedWeather = unlistedName(condition, weather);
+            this.description = intern(description);
             this.temperature = temperature;
-            this.icon = icon;
+            this.icon = intern(icon);
             this.pop = pop;
         }
 
@@ -331,7 +362,16 @@ public interface iAPI {
          * @return weather.
          */
         public String getWeather() {
-            return weather;
+            return unlistedWeather != null ? unlistedWeather : condition.getApiName();
+        }
+
+        /**
+         * Returns weather condition.
+         * @return weather condition.
+         */
+        @JsonIgnore
+        public WeatherCondition getCondition() {
+            return condition;
         }
 
         /**
@@ -357,16 +397,96 @@ public interface iAPI {
         public double getPop() {
             return pop;
         }
+    }
+
+    /**
+     * Class for storing the hourly and daily forecasts of one One Call response.
+     */
+    public class ForecastBundle {
+        private final List<HourlyForecast> hourly;
+        private final List<DailyForecast> daily;
+        private final ForecastSeries hourlySeries;
+        private final ForecastSeries dailySeries;
+
+        /**
+         * Constructor for forecasts without the full series.
+         * @param hourly Hourly forecasts.
+         * @param daily Daily forecasts.
+         */
+        public ForecastBundle(List<HourlyForecast> hourly, List<DailyForecast> daily) {
+            this(hourly, daily, null, null);
+        }
 
         /**
-         * Sets temperature.
-         * @param temperature temperature.
+         * Constructor.
+         * @param hourly Hourly forecasts.
+         * @param daily Daily forecasts.
+         * @param hourlySeries Full hourly series, or null if not available.
+         * @param dailySeries Full daily series, or null if not available.
          */
-        public void setTemp(double temperature) {
-            this.temperature = temperature;
+        @JsonCreator
+        public ForecastBundle(@JsonProperty("hourly") List<HourlyForecast> hourly,
+                @JsonProperty("daily") List<DailyForecast> daily,
+                @JsonProperty("hourlySeries") ForecastSeries hourlySeries,
+                @JsonProperty("dailySeries") ForecastSeries dailySeries) {
+            this.hourly = List.copyOf(hourly);
+            this.daily = List.copyOf(daily);
+            this.hourlySeries = hourlySeries == null ? ForecastSeries.EMPTY : hourlySeries;
+            this.dailySeries = dailySeries == null ? ForecastSeries.EMPTY : dailySeries;
+        }
+
+        /**
+         * Returns hourly forecasts.
+         * @return hourly forecasts.
+         */
+        public List<HourlyForecast> getHourly() {
+            return hourly;
+        }
+
+        /**
+         * Returns daily forecasts.
+         * @return daily forecasts.
+         */
+        public List<DailyForecast> getDaily() {
+            return daily;
+        }
+
+        /**
+         * Returns the full hourly series, starting from the current hour.
+         * @return hourly series, empty if not available.
+         */
+        public ForecastSeries getHourlySeries() {
+            return hourlySeries;
+        }
+
+        /**
+         * Returns the full daily series, starting from today.
+         * @return daily series, empty if not available.
+         */
+        public ForecastSeries getDailySeries() {
+            return dailySeries;
         }
     }
 
+    /**
+     * Returns the shared instance of a repeating string.
+     * @param value String to intern, may be null.
+     * @return interned string, or null.
+     */
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    /**
+     * Returns the API name to keep for a condition WeatherCondition does not list.
+     * @param condition Condition parsed from the API name.
+     * @param apiName API name, may be null.
+     * @return interned API name if the condition is UNKNOWN, otherwise null.
+     */
+    private static String unlistedName(WeatherCondition condition, String apiName) {
+        return condition == WeatherCondition.UNKNOWN && apiName != null ? apiName.intern() : null;
+    }
+
     /**
      * Returns coordinates for a location.
      * @param location Name of the location for which coordinates should be fetched.
@@ -391,6 +511,22 @@ public interface iAPI {
      */
     public List<HourlyForecast>getHourlyForecast(Coordinates coordinates) throws ForecastNotFoundException;
 
+    /**
+     * Returns both the hourly and the daily forecast for a location using a single request.
+     * @param coordinates Coordinates of the location for which forecast should be fetched.
+     * @return ForecastBundle with hourly and daily forecasts.
+     * @throws ForecastNotFoundException if forecast not found
+     */
+    public ForecastBundle getForecastBundle(Coordinates coordinates) throws ForecastNotFoundException;
+
+    /**
+     * Sets how many entries the full hourly and daily forecast series of a ForecastBundle keep.
+     * @param hours Number of hourly entries, 1 to 48.
+     * @param days Number of daily entries including today, 1 to 8.
+     * @throws IllegalArgumentException If the horizon is out of range.
+     */
+    public void setForecastHorizon(int hours, int days);
+
     /**
      * Returns current weather data for a location
      * @param coordinates Coordinates of the location for which weather should be fetched.
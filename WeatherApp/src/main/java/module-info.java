@@ -3,17 +3,19 @@
  * with a graphical user interface (GUI) for displaying current weather,
  * forecasts, and other related information.
  *
- * <p>This module exports the main package "fi.tuni.prog3.weatherapp" for external use.
+ * <p>This module exports the main package "fi.tuni.prog3.weatherapp" for external use,
+ * and opens it to Jackson so the API and snapshot data classes can be bound.
  * It requires the following modules:
  * - javafx.controls: JavaFX controls for building the GUI.
- * - com.google.gson: Gson library for JSON processing.
+ * - java.net.http: HTTP client for the OpenWeatherMap API calls.
  * - javafx.graphics: JavaFX graphics components.
- * - com.fasterxml.jackson.databind: Jackson library for JSON data binding.
+ * - com.fasterxml.jackson.databind: Jackson library for JSON processing, used through JsonMappers.
  */
 module fi.tuni.prog3.weatherapp {
     exports fi.tuni.prog3.weatherapp;
+    opens fi.tuni.prog3.weatherapp to com.fasterxml.jackson.databind;
     requires javafx.controls;
-    requires com.google.gson;
+    requires java.net.http;
     requires javafx.graphics;
     requires com.fasterxml.jackson.databind;
 }
@@ -0,0 +1,42 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Measures the latency of saving the data files: the previous direct overwrite
+ * against atomic replacement at each durability level.
+ * Pass a directory as the first argument to measure on a specific disk; the
+ * default is a temporary directory.
+ */
+public class AtomicFilesBenchmark {
+    private static final int CALLS = 50;
+
+    /**
+     * Runs the benchmark.
+     * @param args optional directory to write to.
+     * @throws Exception if the benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = args.length > 0 ? Path.of(args[0]) : Files.createTempDirectory("atomic-files");
+        Files.createDirectories(directory);
+        List<String> favorites = List.of("Tampere", "Helsinki", "Oulu", "Joensuu", "Turku");
+        byte[] content = JsonMappers.toBytes(favorites, true);
+        File file = directory.resolve("favorite_cities.json").toFile();
+        System.out.println("Writing " + content.length + " B files in " + directory);
+
+        BenchmarkSupport.measure("Direct overwrite (previous)", CALLS,
+                () -> {
+                    JsonMappers.PRETTY_WRITER.writeValue(file, favorites);
+                    return file;
+                });
+        for (AtomicFiles.Durability durability : AtomicFiles.Durability.values()) {
+            BenchmarkSupport.measure("Atomic, fsync " + durability, CALLS, () -> {
+                AtomicFiles.write(file.toPath(), content, durability);
+                return file;
+            });
+        }
+    }
+}
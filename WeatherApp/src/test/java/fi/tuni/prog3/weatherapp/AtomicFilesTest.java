@@ -0,0 +1,74 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for AtomicFiles.
+ */
+class AtomicFilesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteReplacesTheFile() throws Exception {
+        Path file = tempDir.resolve("favorite_cities.json");
+        Files.writeString(file, "[ \"Joensuu\", \"Kuopio\", \"Lahti\" ]");
+
+        for (AtomicFiles.Durability durability : AtomicFiles.Durability.values()) {
+            AtomicFiles.write(file, ("[\"" + durability + "\"]").getBytes(StandardCharsets.UTF_8), durability);
+            assertEquals("[\"" + durability + "\"]", Files.readString(file));
+        }
+        assertEquals(1, tempDir.toFile().list().length, "no temporary files are left behind");
+    }
+
+    @Test
+    void testWriteToMissingDirectory() throws Exception {
+        AtomicFiles.write(tempDir.resolve("data/a.json"), "1".getBytes(StandardCharsets.UTF_8),
+                AtomicFiles.Durability.DIRECTORY);
+
+        assertEquals("1", Files.readString(tempDir.resolve("data/a.json")));
+    }
+
+    @Test
+    void testStaleTempsAreDeleted() throws Exception {
+        Path stale = Files.createFile(tempDir.resolve(".999999999-1-state.json.tmp"));
+        Path running = Files.createFile(tempDir.resolve("." + ProcessHandle.current().pid() + "-1-state.json.tmp"));
+        Path other = Files.createFile(tempDir.resolve("state.json"));
+
+        assertEquals(1, AtomicFiles.deleteStaleTemps(tempDir));
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(running));
+        assertTrue(Files.exists(other));
+    }
+
+    @Test
+    void testJsonWriteFile() throws Exception {
+        File file = tempDir.resolve("current_city.json").toFile();
+
+        JsonMappers.writeFile(file, "Tampere", true, AtomicFiles.Durability.NONE);
+
+        assertEquals("Tampere", JsonMappers.VALUE_READER.readValue(file));
+    }
+
+    @Test
+    void testParseDurability() {
+        assertEquals(AtomicFiles.Durability.DIRECTORY, AtomicFiles.Durability.parse(" Directory "));
+        assertThrows(IllegalArgumentException.class, () -> AtomicFiles.Durability.parse("always"));
+    }
+
+    @Test
+    void testInvalidDurabilityFallsBackToFile() {
+        assertEquals(AtomicFiles.Durability.FILE, AtomicFiles.durabilityOf("dir"));
+        assertEquals(AtomicFiles.Durability.FILE, AtomicFiles.durabilityOf(null));
+        assertEquals(AtomicFiles.Durability.NONE, AtomicFiles.durabilityOf("none"));
+    }
+}
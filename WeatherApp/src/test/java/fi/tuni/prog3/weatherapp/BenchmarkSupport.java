@@ -0,0 +1,80 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Minimal timing harness for the *Benchmark classes.
+ * The benchmarks are plain main programs (not run by surefire); run them with
+ * the test classpath after mvn test-compile, for example:
+ * java -cp target/classes:target/test-classes:... fi.tuni.prog3.weatherapp.IconRegistryBenchmark
+ */
+final class BenchmarkSupport {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    /**
+     * Sink for results, so the JIT cannot drop the measured work.
+     */
+    static volatile Object sink;
+
+    private BenchmarkSupport() {
+        // static helpers
+    }
+
+    /**
+     * Operation to measure.
+     */
+    interface Operation {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Runs the operation in warm-up and measured rounds and prints the average time per call.
+     * @param name name printed with the result.
+     * @param callsPerRound number of calls per round.
+     * @param operation operation to measure.
+     * @throws Exception if the operation fails.
+     * @return average nanoseconds per call.
+     */
+    static double measure(String name, int callsPerRound, Operation operation) throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(callsPerRound, operation);
+        }
+
+        long bestNanos = Long.MAX_VALUE;
+        long totalNanos = 0;
+        long allocatedBefore = allocatedBytes();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long nanos = runRound(callsPerRound, operation);
+            bestNanos = Math.min(bestNanos, nanos);
+            totalNanos += nanos;
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        long calls = (long) MEASURED_ROUNDS * callsPerRound;
+        double average = (double) totalNanos / calls;
+        System.out.printf("%-40s avg %12.1f ns/op  best %12.1f ns/op  %10s B/op%n", name, average,
+                (double) bestNanos / callsPerRound, allocated < 0 ? "n/a" : String.valueOf(allocated / calls));
+        return average;
+    }
+
+    private static long runRound(int calls, Operation operation) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            sink = operation.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread, if the JVM supports measuring it.
+     * @return allocated bytes, or -1 if not supported.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
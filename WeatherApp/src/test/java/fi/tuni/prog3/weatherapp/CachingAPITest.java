@@ -0,0 +1,134 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for CachingAPI.
+ */
+class CachingAPITest {
+
+    private static final iAPI.Coordinates TAMPERE = CountingAPI.TAMPERE;
+    private static final iAPI.Coordinates HELSINKI = new iAPI.Coordinates(60.1699, 24.9384);
+
+    @Test
+    void testRepeatedCallsAreServedFromCache() throws Exception {
+        CountingAPI counting = new CountingAPI();
+        CachingAPI api = new CachingAPI(counting);
+
+        api.weatherApiCall(TAMPERE);
+        api.weatherApiCall(TAMPERE);
+        api.getHourlyForecast(TAMPERE);
+        api.getForecast(TAMPERE);
+
+        assertEquals(1, counting.weatherCalls.get());
+        assertEquals(1, counting.forecastCalls.get());
+        assertEquals(2, api.getHitCount());
+        assertEquals(2, api.getMissCount());
+    }
+
+    @Test
+    void testHorizonChangeReloadsForecasts() throws Exception {
+        CountingAPI counting = new CountingAPI();
+        CachingAPI api = new CachingAPI(counting);
+
+        api.weatherApiCall(TAMPERE);
+        api.getForecastBundle(TAMPERE);
+        api.setForecastHorizon(24, 3);
+        api.weatherApiCall(TAMPERE);
+        api.getForecastBundle(TAMPERE);
+
+        assertEquals(1, counting.weatherCalls.get());
+        assertEquals(2, counting.forecastCalls.get());
+    }
+
+    @Test
+    void testExpiredEntriesAreReloaded() throws Exception {
+        CountingAPI counting = new CountingAPI();
+        CachingAPI api = new CachingAPI(counting, Duration.ZERO, Duration.ZERO, 8);
+
+        api.weatherApiCall(TAMPERE);
+        api.weatherApiCall(TAMPERE);
+
+        assertEquals(2, counting.weatherCalls.get());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+        CountingAPI counting = new CountingAPI();
+        CachingAPI api = new CachingAPI(counting, Duration.ofMinutes(1), Duration.ofMinutes(1), 1);
+
+        api.weatherApiCall(TAMPERE);
+        api.weatherApiCall(HELSINKI);
+        api.weatherApiCall(TAMPERE);
+
+        assertEquals(3, counting.weatherCalls.get());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneCall() throws Exception {
+        CountingAPI counting = new CountingAPI();
+        counting.gate = new CountDownLatch(1);
+        CachingAPI api = new CachingAPI(counting);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<iAPI.ForecastBundle>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> api.getForecastBundle(TAMPERE)));
+            }
+            // Release the gate once every call is either loading or waiting for the load
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (api.getHitCount() + api.getMissCount() < 4) {
+                assertTrue(System.nanoTime() < deadline);
+                Thread.yield();
+            }
+            counting.gate.countDown();
+
+            iAPI.ForecastBundle first = results.get(0).get(2, TimeUnit.SECONDS);
+            for (Future<iAPI.ForecastBundle> result : results) {
+                assertSame(first, result.get(2, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, counting.forecastCalls.get());
+    }
+
+    @Test
+    void testRefreshReloadsOnlyAgingEntries() throws Exception {
+        CountingAPI counting = new CountingAPI();
+        CachingAPI api = new CachingAPI(counting, Duration.ofMinutes(1), Duration.ofMinutes(1), 8);
+
+        api.weatherApiCall(TAMPERE);
+        assertFalse(api.refreshWeather(TAMPERE));
+        assertEquals(1, counting.weatherCalls.get());
+
+        CachingAPI expiring = new CachingAPI(counting, Duration.ZERO, Duration.ZERO, 8);
+        expiring.getForecastBundle(TAMPERE);
+        assertTrue(expiring.refreshForecastBundle(TAMPERE));
+        assertEquals(2, counting.forecastCalls.get());
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        CountingAPI counting = new CountingAPI();
+        counting.fail = true;
+        CachingAPI api = new CachingAPI(counting);
+
+        assertThrows(ImplementAPI.WeatherDataNotFoundException.class, () -> api.weatherApiCall(TAMPERE));
+        assertThrows(ImplementAPI.WeatherDataNotFoundException.class, () -> api.weatherApiCall(TAMPERE));
+        assertEquals(2, counting.weatherCalls.get());
+    }
+}
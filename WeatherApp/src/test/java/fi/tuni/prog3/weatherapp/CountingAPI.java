@@ -0,0 +1,69 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fake API used by the tests that counts the calls made to it.
+ * Every location is Tampere. Forecast calls can be held at a gate and weather
+ * calls can be made to fail, and each lookup releases a permit, so tests can
+ * wait for calls instead of sleeping.
+ */
+class CountingAPI implements iAPI {
+    /**
+     * Coordinates returned for every location.
+     */
+    static final Coordinates TAMPERE = new Coordinates(61.4981, 23.7619);
+
+    final AtomicInteger weatherCalls = new AtomicInteger();
+    final AtomicInteger forecastCalls = new AtomicInteger();
+    final Semaphore lookups = new Semaphore(0);
+    volatile CountDownLatch gate;
+    volatile boolean fail;
+    private final ImplementAPI exceptions = new ImplementAPI();
+
+    @Override
+    public Coordinates lookUpLocation(String location) {
+        lookups.release();
+        return TAMPERE;
+    }
+
+    @Override
+    public List<DailyForecast> getForecast(Coordinates coordinates) throws ImplementAPI.ForecastNotFoundException {
+        return getForecastBundle(coordinates).getDaily();
+    }
+
+    @Override
+    public List<HourlyForecast> getHourlyForecast(Coordinates coordinates) throws ImplementAPI.ForecastNotFoundException {
+        return getForecastBundle(coordinates).getHourly();
+    }
+
+    @Override
+    public ForecastBundle getForecastBundle(Coordinates coordinates) throws ImplementAPI.ForecastNotFoundException {
+        forecastCalls.incrementAndGet();
+        try {
+            if (gate != null) {
+                gate.await();
+            }
+        } catch (InterruptedException e) {
+            throw exceptions.new ForecastNotFoundException("interrupted", e);
+        }
+        return new ForecastBundle(new ArrayList<>(), new ArrayList<>());
+    }
+
+    @Override
+    public void setForecastHorizon(int hours, int days) {
+    }
+
+    @Override
+    public CurrentCityWeather weatherApiCall(Coordinates coordinates) throws ImplementAPI.WeatherDataNotFoundException {
+        weatherCalls.incrementAndGet();
+        if (fail) {
+            throw exceptions.new WeatherDataNotFoundException("not found");
+        }
+        return new CurrentCityWeather(coordinates, "Tampere", "Clouds", "Broken clouds", -1.2, "04n", -5.4, 3.6, 86);
+    }
+}
@@ -0,0 +1,42 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataDirectoryTest {
+
+    @Test
+    void testPropertyComesFirst() {
+        Map<String, String> properties = Map.of(DataDirectory.PROPERTY, "/tmp/from-property");
+        Map<String, String> environment = Map.of(DataDirectory.ENVIRONMENT_VARIABLE, "/tmp/from-env",
+                "XDG_DATA_HOME", "/tmp/xdg");
+
+        assertEquals(Path.of("/tmp/from-property"),
+                DataDirectory.resolve(properties::get, environment::get, "Linux", "/home/user"));
+        assertEquals(Path.of("/tmp/from-env"),
+                DataDirectory.resolve(name -> null, environment::get, "Linux", "/home/user"));
+    }
+
+    @Test
+    void testXdgDataHome() {
+        Map<String, String> environment = Map.of("XDG_DATA_HOME", "/tmp/xdg");
+
+        assertEquals(Path.of("/tmp/xdg", "weatherapp"),
+                DataDirectory.resolve(name -> null, environment::get, "Linux", "/home/user"));
+        // Relative paths are invalid per the XDG specification and ignored
+        assertEquals(Path.of("/home/user", ".local", "share", "weatherapp"),
+                DataDirectory.resolve(name -> null, Map.of("XDG_DATA_HOME", "xdg")::get, "Linux", "/home/user"));
+    }
+
+    @Test
+    void testPlatformDefaults() {
+        assertEquals(Path.of("/Users/user", "Library", "Application Support", "weatherapp"),
+                DataDirectory.resolve(name -> null, name -> null, "Mac OS X", "/Users/user"));
+        assertEquals(Path.of("/home/user", ".local", "share", "weatherapp"),
+                DataDirectory.resolve(name -> null, name -> null, "Linux", "/home/user"));
+    }
+}
@@ -0,0 +1,98 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares a 48-hour ForecastSeries with the same data as a list of HourlyForecast
+ * objects: retained heap per forecast and the cost of a min/max scan and of a
+ * Fahrenheit conversion.
+ */
+public class ForecastSeriesBenchmark {
+    private static final int RETAINED = 5_000;
+
+    /**
+     * Runs the benchmark.
+     * @param args not used.
+     * @throws Exception if the benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        byte[] oneCall;
+        try (InputStream in = ResponseDecoderTest.fixture("onecall.json")) {
+            oneCall = in.readAllBytes();
+        }
+        ForecastSeries series = ResponseDecoder.decodeOneCall(new ByteArrayInputStream(oneCall)).getHourlySeries();
+        List<iAPI.HourlyForecast> list = toList(series);
+
+        System.out.printf("Retained heap, 48 hours as List<HourlyForecast>: %d B%n",
+                retainedBytes(() -> toList(series)));
+        System.out.printf("Retained heap, 48 hours as ForecastSeries:       %d B%n",
+                retainedBytes(() -> copy(series)));
+
+        BenchmarkSupport.measure("Min/max: List<HourlyForecast>", 200_000, () -> {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (iAPI.HourlyForecast forecast : list) {
+                min = Math.min(min, forecast.getTemperature());
+                max = Math.max(max, forecast.getTemperature());
+            }
+            return min + max;
+        });
+        BenchmarkSupport.measure("Min/max: ForecastSeries", 200_000,
+                () -> series.lowestTemperature() + series.highestTemperature());
+
+        BenchmarkSupport.measure("To Fahrenheit: List<HourlyForecast>", 200_000, () -> {
+            List<Double> converted = new ArrayList<>(list.size());
+            for (iAPI.HourlyForecast forecast : list) {
+                converted.add(forecast.getTemperature() * 9 / 5 + 32);
+            }
+            return converted;
+        });
+        BenchmarkSupport.measure("To Fahrenheit: ForecastSeries", 200_000, () -> series.copyTemperatures(true));
+    }
+
+    /**
+     * Returns the entries as HourlyForecast objects, with distinct strings per object
+     * as a parser would create them.
+     */
+    private static List<iAPI.HourlyForecast> toList(ForecastSeries series) {
+        List<iAPI.HourlyForecast> list = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            list.add(new iAPI.HourlyForecast(TimeFormats.hourLabel(series.getTime(i), series.getTimezoneOffset()),
+                    series.getIcon(i), series.getCondition(i).getApiName(), "description",
+                    series.getTemperature(i), series.getPop(i)));
+        }
+        return list;
+    }
+
+    private static ForecastSeries copy(ForecastSeries series) {
+        ForecastSeries.Builder builder = new ForecastSeries.Builder(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            builder.add(series.getTime(i), series.getTemperature(i), series.getMinTemperature(i),
+                    series.getMaxTemperature(i), series.getPop(i), series.getHumidity(i), series.getCondition(i),
+                    series.getIcon(i));
+        }
+        return builder.build(series.getTimezoneOffset());
+    }
+
+    private static long retainedBytes(BenchmarkSupport.Operation operation) throws Exception {
+        List<Object> retained = new ArrayList<>(RETAINED);
+        long before = usedHeap();
+        for (int i = 0; i < RETAINED; i++) {
+            retained.add(operation.run());
+        }
+        long after = usedHeap();
+        BenchmarkSupport.sink = retained;
+        return (after - before) / RETAINED;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
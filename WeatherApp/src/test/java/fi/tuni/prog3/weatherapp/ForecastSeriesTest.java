@@ -0,0 +1,67 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for ForecastSeries.
+ */
+class ForecastSeriesTest {
+
+    private static ForecastSeries sample() {
+        return new ForecastSeries.Builder(2)
+                .add(1000L, 10.0, 5.0, 12.0, 0.1, 80, WeatherCondition.CLOUDS, "03d")
+                .add(2000L, -4.0, -6.5, 1.0, 0.9, 95, WeatherCondition.SNOW, "13d")
+                .add(3000L, 0.0, -1.0, 3.0, 0.0, 70, WeatherCondition.CLOUDS, "03d")
+                .build(7200);
+    }
+
+    @Test
+    void testColumns() {
+        ForecastSeries series = sample();
+
+        assertEquals(3, series.size());
+        assertEquals(2000L, series.getTime(1));
+        assertEquals(-4.0, series.getTemperature(1));
+        assertEquals(95, series.getHumidity(1));
+        assertEquals(WeatherCondition.SNOW, series.getCondition(1));
+        assertEquals("13d", series.getIcon(1));
+        assertSame(series.getIcon(0), series.getIcon(2));
+        assertEquals(7200, series.getTimezoneOffset());
+    }
+
+    @Test
+    void testScans() {
+        ForecastSeries series = sample();
+
+        assertEquals(-6.5, series.lowestTemperature());
+        assertEquals(12.0, series.highestTemperature());
+        assertTrue(Double.isNaN(ForecastSeries.EMPTY.lowestTemperature()));
+    }
+
+    @Test
+    void testCopiesDoNotChangeTheSeries() {
+        ForecastSeries series = sample();
+
+        double[] fahrenheit = series.copyTemperatures(true);
+        assertEquals(50.0, fahrenheit[0]);
+        assertEquals(32.0, fahrenheit[2]);
+
+        series.copyTimes()[0] = 0L;
+        assertEquals(1000L, series.getTime(0));
+        assertEquals(10.0, series.getTemperature(0));
+    }
+
+    @Test
+    void testConditionsAreSavedByName() throws Exception {
+        byte[] json = JsonMappers.toBytes(sample(), false);
+        assertTrue(new String(json, StandardCharsets.UTF_8).contains("\"conditions\":[\"Clouds\",\"Snow\",\"Clouds\"]"));
+
+        ForecastSeries loaded = JsonMappers.VALUE_READER.forType(ForecastSeries.class).readValue(json);
+        assertEquals(WeatherCondition.SNOW, loaded.getCondition(1));
+        assertEquals("13d", loaded.getIcon(1));
+    }
+}
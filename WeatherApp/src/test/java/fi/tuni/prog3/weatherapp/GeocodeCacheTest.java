@@ -0,0 +1,56 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for GeocodeCache.
+ */
+class GeocodeCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testNormalize() {
+        assertEquals("jyvaskyla", GeocodeCache.normalize("  Jyväskylä "));
+        assertEquals("new york", GeocodeCache.normalize("NEW   York"));
+    }
+
+    @Test
+    void testEntriesArePersisted() {
+        String fileName = new File(tempDir, "geocode_cache.json").getPath();
+        GeocodeCache cache = new GeocodeCache(fileName);
+        cache.put("Tampere", "Tampere", new iAPI.Coordinates(61.4980214, 23.7603118));
+        cache.putNotFound("Nowhere");
+
+        GeocodeCache reloaded = new GeocodeCache(fileName);
+        GeocodeCache.CachedLocation found = reloaded.get("tampere ");
+        assertTrue(found.isFound());
+        assertEquals("Tampere", found.getName());
+        assertEquals(new iAPI.Coordinates(61.4980214, 23.7603118), found.getCoordinates());
+        assertFalse(reloaded.get("NOWHERE").isFound());
+        assertNull(reloaded.get("Helsinki"));
+    }
+
+    @Test
+    void testLookUpLocationUsesCache() throws Exception {
+        try (StubWeatherServer server = new StubWeatherServer()) {
+            ImplementAPI api = new ImplementAPI(HttpTransport.shared(), server.baseUrl());
+
+            api.lookUpLocation("Tampere");
+            assertEquals(new iAPI.Coordinates(61.4980214, 23.7603118), api.lookUpLocation("TAMPERE"));
+            assertThrows(ImplementAPI.LocationNotFoundException.class, () -> api.lookUpLocation(StubWeatherServer.UNKNOWN_CITY));
+            assertThrows(ImplementAPI.LocationNotFoundException.class, () -> api.lookUpLocation(StubWeatherServer.UNKNOWN_CITY));
+
+            assertEquals(2, server.getRequestCount("/geo/1.0/direct"));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for HttpTransport, run against the local stub server.
+ */
+class HttpTransportTest {
+
+    private StubWeatherServer server;
+    private HttpTransport transport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new StubWeatherServer();
+        transport = new HttpTransport(Duration.ofSeconds(2), Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void testConnectionIsReused() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            // Read only the start of the body, as a parser stopping at the end of the JSON value would
+            try (InputStream body = transport.getStream(server.baseUrl() + "/data/2.5/weather?lat=1&lon=1")) {
+                assertNotEquals(-1, body.read());
+            }
+        }
+
+        assertEquals(10, server.getRequestCount());
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    void testErrorResponse() {
+        assertThrows(IOException.class, () -> transport.getStream(server.baseUrl() + "/data/2.5/weather?lat=-200&lon=200"));
+    }
+
+    @Test
+    void testInvalidUrlDoesNotShowApiKey() {
+        IOException e = assertThrows(IOException.class,
+                () -> transport.getStream("http://bad host/data/2.5/weather?lat=1&lon=1&appid=secret"));
+        assertFalse(e.getMessage().contains("secret"));
+        assertEquals("http://bad host/data/2.5/weather?...", HttpTransport.redact("http://bad host/data/2.5/weather?appid=secret"));
+    }
+
+    @Test
+    void testReadTimeout() {
+        server.setDelayMillis(1500);
+        assertThrows(IOException.class, () -> transport.getStream(server.baseUrl() + "/data/2.5/weather?lat=1&lon=1"));
+    }
+
+    @Test
+    void testApiCallsShareOneConnection() throws Exception {
+        ImplementAPI api = new ImplementAPI(transport, server.baseUrl());
+
+        ImplementAPI.Coordinates coord = api.lookUpLocation("Tampere");
+        api.weatherApiCall(coord);
+        api.getHourlyForecast(coord);
+        api.getForecast(coord);
+
+        assertEquals(new ImplementAPI.Coordinates(61.4980214, 23.7603118), coord);
+        assertEquals(4, server.getRequestCount());
+        assertEquals(1, server.getConnectionCount());
+        assertThrows(ImplementAPI.LocationNotFoundException.class, () -> api.lookUpLocation(StubWeatherServer.UNKNOWN_CITY));
+    }
+}
@@ -0,0 +1,83 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.util.Random;
+
+/**
+ * Compares IconRegistry lookups with the string switch ImageHandler used before.
+ * The code mix follows a UI refresh: 6 hourly and 7 daily icons plus the main
+ * icon and the favourite star, with clear, cloudy and rainy codes most common.
+ */
+public class IconRegistryBenchmark {
+    private static final String[] COMMON = {"01d", "01n", "02d", "02n", "03d", "03n", "04d", "04n", "10d", "10n"};
+    private static final String[] RARE = {"09d", "09n", "11d", "11n", "13d", "13n", "50d", "50n", "unknown"};
+    private static final String[] UI = {"FAVORITE", "NOT_FAVORITE", "DEFAULT_IMAGE"};
+    private static final int CODES = 4096;
+
+    /**
+     * Runs the benchmark.
+     * @param args not used.
+     * @throws Exception if the benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        String[] codes = codeMix();
+        int[] index = {0};
+
+        BenchmarkSupport.measure("switch (before)", 1_000_000,
+                () -> switchPath(codes[index[0]++ & (CODES - 1)]));
+        BenchmarkSupport.measure("IconRegistry.resolve", 1_000_000,
+                () -> IconRegistry.resolve(codes[index[0]++ & (CODES - 1)]));
+    }
+
+    private static String[] codeMix() {
+        Random random = new Random(42);
+        String[] codes = new String[CODES];
+        for (int i = 0; i < CODES; i++) {
+            int roll = random.nextInt(100);
+            if (roll < 75) {
+                codes[i] = COMMON[random.nextInt(COMMON.length)];
+            } else if (roll < 90) {
+                codes[i] = RARE[random.nextInt(RARE.length)];
+            } else {
+                codes[i] = UI[random.nextInt(UI.length)];
+            }
+            // Codes arrive as fresh strings parsed from JSON, not as interned literals
+            codes[i] = new String(codes[i]);
+        }
+        return codes;
+    }
+
+    /**
+     * Copy of the former ImageHandler.getImagePath switch, as the baseline.
+     */
+    private static String switchPath(String weather) {
+        switch (weather) {
+            case "FAVORITE": return "/icons2/starSelected.png";
+            case "NOT_FAVORITE": return "/icons2/starNotSelected.png";
+            case "HUMIDITY": return "/icons2/HUMIDITY.png";
+            case "UV": return "/icons2/UV.png";
+            case "TEMP": return "/icons2/TEMP.png";
+            case "WIND": return "/icons2/WIND.png";
+            case "RAIN": return "/icons2/RAIN.png";
+            case "DEFAULT_IMAGE": return "/38.png";
+            case "01d": return "/01d.png";
+            case "01n": return "/01n.png";
+            case "02d": return "/02d.png";
+            case "02n": return "/02n.png";
+            case "03d": return "/03.png";
+            case "03n": return "/03.png";
+            case "04d": return "/03.png";
+            case "04n": return "/03.png";
+            case "09d": return "/09.png";
+            case "09n": return "/09.png";
+            case "10d": return "/10d.png";
+            case "10n": return "/10n.png";
+            case "11d": return "/11d.png";
+            case "11n": return "/11n.png";
+            case "13d": return "/13d.png";
+            case "13n": return "/13n.png";
+            case "50d": return "/50d.png";
+            case "50n": return "/50n.png";
+            default: return "/38.png";
+        }
+    }
+}
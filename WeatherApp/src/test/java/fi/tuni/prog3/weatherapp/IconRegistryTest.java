@@ -0,0 +1,33 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for IconRegistry.
+ */
+class IconRegistryTest {
+
+    @Test
+    void testResolve() {
+        assertEquals("/10d.png", IconRegistry.resolve("10d"));
+        assertEquals("/03.png", IconRegistry.resolve("04n"));
+        assertEquals("/icons2/starSelected.png", IconRegistry.resolve("FAVORITE"));
+    }
+
+    @Test
+    void testUnmappedCodesFallBackAndAreCounted() {
+        long before = IconRegistry.getUnmappedCount();
+
+        assertEquals(IconRegistry.resolve(IconRegistry.DEFAULT_CODE), IconRegistry.resolve("99x"));
+        assertEquals(IconRegistry.resolve(IconRegistry.DEFAULT_CODE), IconRegistry.resolve(null));
+        assertEquals(before + 2, IconRegistry.getUnmappedCount());
+    }
+
+    @Test
+    void testWeatherIconCodes() {
+        assertEquals(18, IconRegistry.getWeatherIconCodes().size());
+        assertTrue(IconRegistry.getWeatherIconCodes().contains("50n"));
+    }
+}
@@ -46,6 +46,22 @@ class ImplementAPITest {
         assertThrows(ImplementAPI.ForecastNotFoundException.class, () -> api.getHourlyForecast(new ImplementAPI.Coordinates(-200, 200)));
     }
 
+    @Test
+    void testGetForecastBundle() throws ImplementAPI.ForecastNotFoundException, IOException {
+        try (StubWeatherServer server = new StubWeatherServer()) {
+            ImplementAPI stubApi = new ImplementAPI(HttpTransport.shared(), server.baseUrl());
+            ImplementAPI.ForecastBundle result = stubApi.getForecastBundle(new ImplementAPI.Coordinates(61.4981, 23.7619));
+
+            assertEquals(6, result.getHourly().size());
+            assertEquals(7, result.getDaily().size());
+            assertEquals(48, result.getHourlySeries().size());
+            assertEquals(8, result.getDailySeries().size());
+            assertEquals(1, server.getRequestCount("/data/2.5/onecall"));
+            assertTrue(server.getLastQuery("/data/2.5/onecall").contains("units=metric"));
+            assertEquals(-2.3, result.getDaily().get(0).getMinTemp(), 1e-9);
+        }
+    }
+
     @Test
     void testWeatherApiCall() throws ImplementAPI.WeatherDataNotFoundException, IOException {
         ImplementAPI.CurrentCityWeather result = api.weatherApiCall(new ImplementAPI.Coordinates(61.4980214, 23.760311));
@@ -0,0 +1,75 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.File;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for JsonMappers.
+ */
+class JsonMappersTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testStringListRoundTrip() throws Exception {
+        List<String> cities = List.of("Tampere", "Helsinki");
+        String json = JsonMappers.WRITER.writeValueAsString(cities);
+
+        assertEquals("[\"Tampere\",\"Helsinki\"]", json);
+        assertEquals(cities, JsonMappers.STRING_LIST_READER.readValue(json));
+    }
+
+    @Test
+    void testSharedReaderAcrossThreads() {
+        List<CompletableFuture<JsonNode>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String json = "{\"index\":" + i + "}";
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return JsonMappers.TREE_READER.readValue(json);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).join().get("index").asInt());
+        }
+    }
+
+    @Test
+    void testWarmUpAsync() throws Exception {
+        JsonMappers.warmUpAsync().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testReadFile() throws Exception {
+        List<String> small = List.of("Tampere");
+        List<String> large = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            large.add("City " + i);
+        }
+        File smallFile = new File(tempDir, "small.json");
+        File largeFile = new File(tempDir, "large.json");
+        JsonMappers.writeFile(smallFile, small, false);
+        JsonMappers.writeFile(largeFile, large, false);
+
+        assertEquals(small, JsonMappers.readFile(JsonMappers.STRING_LIST_READER, smallFile));
+        assertEquals(large, JsonMappers.readFile(JsonMappers.STRING_LIST_READER, largeFile));
+        assertThrows(NoSuchFileException.class,
+                () -> JsonMappers.readFile(JsonMappers.STRING_LIST_READER, new File(tempDir, "missing.json")));
+    }
+}
@@ -0,0 +1,108 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compares the cold-start cost of the JSON layer in fresh JVMs: time to the first
+ * parsed One Call response, classes loaded and heap used afterwards.
+ * Each configuration runs in its own child JVM several times and the median is printed.
+ * <p>
+ * "jackson" is the current setup. "jackson+gson" additionally loads and uses Gson, as the
+ * application did while both engines were on the module path; pass the Gson jar as the
+ * first argument to include it, for example:
+ * java -cp target/classes:target/test-classes:... fi.tuni.prog3.weatherapp.JsonStartupBenchmark ~/.m2/.../gson-2.9.0.jar
+ */
+public class JsonStartupBenchmark {
+    private static final int RUNS = 7;
+
+    /**
+     * Runs the comparison, or a single probe when started with "probe" as the first argument.
+     * @param args optional path to the Gson jar, or "probe" and the configuration name.
+     * @throws Exception if a child JVM cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && "probe".equals(args[0])) {
+            probe(args[1]);
+            return;
+        }
+
+        String classPath = System.getProperty("java.class.path");
+        run("jackson", classPath);
+        if (args.length > 0) {
+            run("jackson+gson", classPath + File.pathSeparator + args[0]);
+        } else {
+            System.out.println("jackson+gson: skipped, pass the Gson jar as the first argument");
+        }
+    }
+
+    /**
+     * Runs one configuration in fresh JVMs and prints the medians.
+     */
+    private static void run(String config, String classPath) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        long[][] results = new long[3][RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            Process process = new ProcessBuilder(java, "-Xshare:auto", "-cp", classPath,
+                    JsonStartupBenchmark.class.getName(), "probe", config)
+                    .redirectErrorStream(true)
+                    .start();
+            String line;
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                line = reader.readLine();
+            }
+            if (process.waitFor() != 0 || line == null || !line.startsWith("probe ")) {
+                throw new IllegalStateException("Probe failed for " + config + ": " + line);
+            }
+            String[] values = line.split(" ");
+            for (int j = 0; j < 3; j++) {
+                results[j][i] = Long.parseLong(values[j + 1]);
+            }
+        }
+        System.out.printf("%-14s first parse %6.1f ms  classes %6d  heap %8d KB  (median of %d JVMs)%n",
+                config, median(results[0]) / 1000.0, median(results[1]), median(results[2]), RUNS);
+    }
+
+    /**
+     * Initializes the JSON layer of one configuration, parses the fixtures and prints
+     * the elapsed microseconds, loaded classes and used heap in KB.
+     */
+    private static void probe(String config) throws Exception {
+        long start = System.nanoTime();
+        byte[] oneCall;
+        try (InputStream in = ResponseDecoderTest.fixture("onecall.json")) {
+            oneCall = in.readAllBytes();
+        }
+
+        JsonMappers.warmUp();
+        ResponseDecoder.decodeOneCall(new ByteArrayInputStream(oneCall));
+        if (config.contains("gson")) {
+            // Reflection, so this class compiles without Gson on the classpath
+            Class<?> gsonClass = Class.forName("com.google.gson.Gson");
+            Object gson = gsonClass.getConstructor().newInstance();
+            BenchmarkSupport.sink = gsonClass.getMethod("fromJson", String.class, Class.class)
+                    .invoke(gson, new String(oneCall, StandardCharsets.UTF_8), Object.class);
+        }
+        long elapsedMicros = (System.nanoTime() - start) / 1000;
+
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapKb = memory.getHeapMemoryUsage().getUsed() / 1024;
+        long classes = ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+        System.out.println("probe " + elapsedMicros + " " + classes + " " + heapKb);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,86 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for RefreshScheduler.
+ */
+class RefreshSchedulerTest {
+
+    private static final iAPI.Coordinates TAMPERE = CountingAPI.TAMPERE;
+
+    @Test
+    void testCitiesAreRefreshedRepeatedly() throws Exception {
+        CountingAPI counting = new CountingAPI();
+        CachingAPI api = new CachingAPI(counting, Duration.ZERO, Duration.ZERO, 8);
+        CountDownLatch refreshed = new CountDownLatch(6);
+
+        try (RefreshScheduler scheduler = new RefreshScheduler(api, Duration.ofMillis(20), Duration.ofMillis(30),
+                city -> refreshed.countDown())) {
+            scheduler.setCities(List.of("Tampere"));
+
+            assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+        }
+        assertTrue(counting.weatherCalls.get() >= 2);
+        assertTrue(counting.forecastCalls.get() >= 2);
+    }
+
+    @Test
+    void testCachedDataIsNotReported() throws Exception {
+        CountingAPI counting = new CountingAPI();
+        CachingAPI api = new CachingAPI(counting, Duration.ofMinutes(1), Duration.ofMinutes(1), 8);
+        api.weatherApiCall(TAMPERE);
+        api.getForecastBundle(TAMPERE);
+        AtomicInteger refreshed = new AtomicInteger();
+
+        try (RefreshScheduler scheduler = new RefreshScheduler(api, Duration.ofMillis(20), Duration.ofMillis(30),
+                city -> refreshed.incrementAndGet())) {
+            scheduler.setCities(List.of("Tampere"));
+            // Refreshes run on one thread, so the fifth lookup means the first four refreshes are done
+            assertTrue(counting.lookups.tryAcquire(5, 5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, refreshed.get());
+        assertEquals(1, counting.weatherCalls.get());
+        assertEquals(1, counting.forecastCalls.get());
+    }
+
+    @Test
+    void testSetCitiesReplacesTheCities() {
+        CachingAPI api = new CachingAPI(new CountingAPI());
+
+        try (RefreshScheduler scheduler = new RefreshScheduler(api, city -> { })) {
+            scheduler.setCities(List.of("Tampere", "Helsinki"));
+            scheduler.setCities(List.of("Helsinki", "Oulu"));
+
+            assertEquals(Set.of("Helsinki", "Oulu"), scheduler.getCities());
+        }
+    }
+
+    @Test
+    void testFailuresBackOffExponentially() {
+        Duration interval = Duration.ofMinutes(4);
+
+        assertEquals(interval.toNanos(), RefreshScheduler.nextDelayNanos(interval, 0));
+        assertEquals(Duration.ofSeconds(30).toNanos(), RefreshScheduler.nextDelayNanos(interval, 1));
+        assertEquals(Duration.ofSeconds(60).toNanos(), RefreshScheduler.nextDelayNanos(interval, 2));
+        assertEquals(Duration.ofSeconds(120).toNanos(), RefreshScheduler.nextDelayNanos(interval, 3));
+        assertEquals(RefreshScheduler.MAX_BACKOFF.toNanos(), RefreshScheduler.nextDelayNanos(interval, 50));
+    }
+
+    @Test
+    void testJitterStaysWithinBounds() {
+        for (int i = 0; i < 1000; i++) {
+            long delay = RefreshScheduler.jitter(1_000_000);
+            assertTrue(delay >= 900_000 && delay <= 1_100_000, "delay " + delay);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package fi.tuni.prog3.weatherapp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the streaming ResponseDecoder with the former path of reading the
+ * body into a String, building a JsonNode tree and walking it, on the recorded
+ * One Call and current weather payloads.
+ */
+public class ResponseDecoderBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args not used.
+     * @throws Exception if the benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        byte[] oneCall;
+        byte[] weather;
+        try (InputStream in = ResponseDecoderTest.fixture("onecall.json")) {
+            oneCall = in.readAllBytes();
+        }
+        try (InputStream in = ResponseDecoderTest.fixture("weather.json")) {
+            weather = in.readAllBytes();
+        }
+        iAPI.Coordinates coord = new iAPI.Coordinates(61.498, 23.7603);
+
+        BenchmarkSupport.measure("One Call: String + readTree (before)", 2_000,
+                () -> treeOneCall(new ByteArrayInputStream(oneCall)));
+        BenchmarkSupport.measure("One Call: streaming decoder", 2_000,
+                () -> ResponseDecoder.decodeOneCall(new ByteArrayInputStream(oneCall)));
+        BenchmarkSupport.measure("Weather: String + readTree (before)", 20_000,
+                () -> treeCurrent(new ByteArrayInputStream(weather)));
+        BenchmarkSupport.measure("Weather: streaming decoder", 20_000,
+                () -> ResponseDecoder.decodeCurrent(new ByteArrayInputStream(weather), coord, "Tampere"));
+
+        System.out.printf("Retained heap per decoded One Call bundle: %d B%n", retainedBytes(oneCall));
+    }
+
+    /**
+     * Decodes and keeps many bundles and returns the heap they retain per bundle.
+     */
+    private static long retainedBytes(byte[] oneCall) throws Exception {
+        int count = 10_000;
+        List<Object> retained = new ArrayList<>(count);
+        long before = usedHeap();
+        for (int i = 0; i < count; i++) {
+            retained.add(ResponseDecoder.decodeOneCall(new ByteArrayInputStream(oneCall)));
+        }
+        long after = usedHeap();
+        BenchmarkSupport.sink = retained;
+        return (after - before) / count;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Reads the body line by line, as the former makeApiCall did.
+     */
+    private static String readBody(InputStream in) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+        StringBuilder response = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            response.append(line);
+        }
+        reader.close();
+        return response.toString();
+    }
+
+    /**
+     * Former getHourlyForecast and getForecast parsing.
+     */
+    private static Object treeOneCall(InputStream in) throws Exception {
+        JsonNode jsonNode = new ObjectMapper().readTree(readBody(in));
+        String timezone = jsonNode.get("timezone").asText();
+
+        List<Object> result = new ArrayList<>();
+        JsonNode hourlyNode = jsonNode.path("hourly");
+        for (int i = 0; i < 6; i++) {
+            String time = ImplementAPI.getHour(hourlyNode.get(i).get("dt").asLong(), timezone);
+            String icon = hourlyNode.get(i).get("weather").get(0).get("icon").asText();
+            String main = hourlyNode.get(i).get("weather").get(0).get("main").asText();
+            String description = hourlyNode.get(i).get("weather").get(0).get("description").asText();
+            double pop = hourlyNode.get(i).get("pop").asDouble();
+            double temp = Math.round((hourlyNode.get(i).get("temp").asDouble() - 273.15) * 10.0) / 10.0;
+            result.add(new iAPI.HourlyForecast(time, icon, main, description, temp, pop));
+        }
+
+        JsonNode dailyNode = jsonNode.path("daily");
+        for (int i = 1; i <= 7; i++) {
+            String icon = dailyNode.get(i).get("weather").get(0).get("icon").asText();
+            String main = dailyNode.get(i).get("weather").get(0).get("main").asText();
+            String description = dailyNode.get(i).get("weather").get(0).get("description").asText();
+            int min = (int) Math.round(dailyNode.get(i).get("temp").get("min").asDouble() - 273.15);
+            int max = (int) Math.round(dailyNode.get(i).get("temp").get("max").asDouble() - 273.15);
+            result.add(new iAPI.DailyForecast("day", icon, main, description, min, max));
+        }
+        return result;
+    }
+
+    /**
+     * Former weatherApiCall parsing.
+     */
+    private static Object treeCurrent(InputStream in) throws Exception {
+        JsonNode jsonNode = new ObjectMapper().readTree(readBody(in));
+        String icon = jsonNode.get("weather").get(0).get("icon").asText();
+        String main = jsonNode.get("weather").get(0).get("main").asText();
+        String description = jsonNode.get("weather").get(0).get("description").asText();
+        double temp = jsonNode.get("main").get("temp").asDouble();
+        double feelsLike = jsonNode.get("main").get("feels_like").asDouble();
+        double wind = jsonNode.get("wind").get("speed").asDouble();
+        int humidity = jsonNode.get("main").get("humidity").asInt();
+        description = description.substring(0, 1).toUpperCase() + description.substring(1);
+        return new iAPI.CurrentCityWeather(null, "Tampere", main, description, temp, icon, feelsLike, wind, humidity);
+    }
+}
@@ -0,0 +1,152 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for ResponseDecoder, using the recorded payloads in the fixtures.
+ */
+class ResponseDecoderTest {
+
+    @Test
+    void testDecodeOneCall() throws IOException {
+        iAPI.ForecastBundle bundle;
+        try (InputStream in = fixture("onecall.json")) {
+            bundle = ResponseDecoder.decodeOneCall(in);
+        }
+
+        assertEquals(6, bundle.getHourly().size());
+        iAPI.HourlyForecast hour = bundle.getHourly().get(0);
+        assertEquals("01:00", hour.getTime());
+        assertEquals(-2.0, hour.getTemperature());
+        assertEquals("Clear", hour.getWeather());
+        assertEquals("01n", hour.getIcon());
+        assertEquals(0.0, hour.getPop());
+
+        assertEquals(7, bundle.getDaily().size());
+        iAPI.DailyForecast day = bundle.getDaily().get(0);
+        assertEquals("Thursday", day.getDate());
+        assertEquals("Wednesday", bundle.getDaily().get(6).getDate());
+        assertEquals(-2.3, day.getMinTemp(), 1e-9);
+        assertEquals(3.4, day.getMaxTemp(), 1e-9);
+        assertEquals("Clouds", day.getWeather());
+        assertEquals("few clouds", day.getDescription());
+        assertEquals("02d", day.getIcon());
+    }
+
+    @Test
+    void testFullSeries() throws IOException {
+        iAPI.ForecastBundle bundle;
+        try (InputStream in = fixture("onecall.json")) {
+            bundle = ResponseDecoder.decodeOneCall(in);
+        }
+
+        ForecastSeries hourly = bundle.getHourlySeries();
+        assertEquals(48, hourly.size());
+        assertEquals(1700002800L, hourly.getTime(0));
+        assertEquals(1700002800L + 47 * 3600L, hourly.getTime(47));
+        assertEquals(-2.0, hourly.getTemperature(0), 1e-9);
+        assertEquals(hourly.getTemperature(5), hourly.getMaxTemperature(5));
+        assertEquals("01n", hourly.getIcon(0));
+        assertEquals(7200, hourly.getTimezoneOffset());
+
+        ForecastSeries daily = bundle.getDailySeries();
+        assertEquals(8, daily.size());
+        assertEquals(-2.3, daily.getMinTemperature(1), 1e-9);
+        assertEquals(3.4, daily.getMaxTemperature(1), 1e-9);
+    }
+
+    @Test
+    void testHorizon() throws IOException {
+        iAPI.ForecastBundle bundle;
+        try (InputStream in = fixture("onecall.json")) {
+            bundle = ResponseDecoder.decodeOneCall(in, 12, 3);
+        }
+
+        assertEquals(12, bundle.getHourlySeries().size());
+        assertEquals(3, bundle.getDailySeries().size());
+        assertEquals(6, bundle.getHourly().size());
+        assertEquals(7, bundle.getDaily().size());
+        assertThrows(IllegalArgumentException.class, () -> ResponseDecoder.decodeOneCall(fixture("onecall.json"), 49, 8));
+    }
+
+    @Test
+    void testRepeatedValuesAreShared() throws IOException {
+        iAPI.ForecastBundle first;
+        iAPI.ForecastBundle second;
+        try (InputStream in = fixture("onecall.json")) {
+            first = ResponseDecoder.decodeOneCall(in);
+        }
+        try (InputStream in = fixture("onecall.json")) {
+            second = ResponseDecoder.decodeOneCall(in);
+        }
+
+        iAPI.HourlyForecast hour = first.getHourly().get(0);
+        assertEquals(WeatherCondition.CLEAR, hour.getCondition());
+        assertSame(hour.getIcon(), second.getHourly().get(0).getIcon());
+        assertSame(hour.getDescription(), second.getHourly().get(0).getDescription());
+        assertSame(first.getDaily().get(0).getDate(), second.getDaily().get(0).getDate());
+    }
+
+    @Test
+    void testDecodeOneCallWithExcludedPart() throws IOException {
+        String json = "{\"timezone\":\"UTC\",\"daily\":[]}";
+        assertThrows(IOException.class, () -> ResponseDecoder.decodeOneCall(stream(json)));
+
+        iAPI.ForecastBundle bundle = ResponseDecoder.decodeOneCall(stream("{\"timezone\":\"UTC\",\"lat\":1}"));
+        assertTrue(bundle.getHourly().isEmpty());
+        assertTrue(bundle.getDaily().isEmpty());
+    }
+
+    @Test
+    void testDecodeCurrent() throws IOException {
+        iAPI.Coordinates coord = new iAPI.Coordinates(61.498, 23.7603);
+        iAPI.CurrentCityWeather weather;
+        try (InputStream in = fixture("weather.json")) {
+            weather = ResponseDecoder.decodeCurrent(in, coord, "Tampere");
+        }
+
+        assertEquals("Tampere", weather.getName());
+        assertEquals(coord, weather.getCoordinates());
+        assertEquals("Clouds", weather.getWeather());
+        assertEquals("Broken clouds", weather.getDescription());
+        assertEquals("04n", weather.getIcon());
+        assertEquals(-1.2, weather.getTemperature());
+        assertEquals(-5.4, weather.getFeelsLike());
+        assertEquals(3.6, weather.getWind());
+        assertEquals(86, weather.getHumidity());
+    }
+
+    @Test
+    void testUnlistedConditionKeepsApiName() throws IOException {
+        String json;
+        try (InputStream in = fixture("weather.json")) {
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\"main\": \"Clouds\"",
+                    "\"main\": \"Volcano\"");
+        }
+
+        iAPI.CurrentCityWeather weather = ResponseDecoder.decodeCurrent(stream(json), null, "Tampere");
+        assertEquals(WeatherCondition.UNKNOWN, weather.getCondition());
+        assertEquals("Volcano", weather.getWeather());
+    }
+
+    @Test
+    void testDecodeCurrentIncomplete() {
+        assertThrows(IOException.class,
+                () -> ResponseDecoder.decodeCurrent(stream("{\"main\":{\"temp\":1}}"), null, "x"));
+    }
+
+    static InputStream fixture(String name) {
+        return ResponseDecoderTest.class.getResourceAsStream("/fixtures/" + name);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
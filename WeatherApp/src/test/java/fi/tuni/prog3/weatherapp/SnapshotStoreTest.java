@@ -0,0 +1,67 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for SnapshotStore.
+ */
+class SnapshotStoreTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testSaveAndLoad() {
+        SnapshotStore store = new SnapshotStore(new File(tempDir, "last_snapshot.json").getPath());
+        iAPI.CurrentCityWeather current = new iAPI.CurrentCityWeather(new iAPI.Coordinates(61.4981, 23.7619),
+                "Tampere", "Clouds", "Broken clouds", -1.2, "04n", -5.4, 3.6, 86);
+        ForecastSeries hourlySeries = new ForecastSeries.Builder(1)
+                .add(1700002800L, 2.5, 2.5, 2.5, 0.4, 90, WeatherCondition.RAIN, "10d")
+                .build(7200);
+        iAPI.ForecastBundle forecasts = new iAPI.ForecastBundle(
+                List.of(new iAPI.HourlyForecast("12:00", "10d", "Rain", "light rain", 2.5, 0.4)),
+                List.of(new iAPI.DailyForecast("Monday", "13d", "Snow", "light snow", -3, 1)),
+                hourlySeries, null);
+
+        store.save(new WeatherSnapshot(current, forecasts));
+        WeatherSnapshot loaded = store.load();
+
+        assertEquals("Tampere", loaded.getCurrent().getName());
+        assertEquals(-1.2, loaded.getCurrent().getTemperature());
+        assertEquals(new iAPI.Coordinates(61.4981, 23.7619), loaded.getCurrent().getCoordinates());
+        assertEquals("12:00", loaded.getForecasts().getHourly().get(0).getTime());
+        assertEquals(0.4, loaded.getForecasts().getHourly().get(0).getPop());
+        assertEquals(-3, loaded.getForecasts().getDaily().get(0).getMinTemp());
+        assertEquals(WeatherCondition.SNOW, loaded.getForecasts().getDaily().get(0).getCondition());
+        assertEquals(1700002800L, loaded.getForecasts().getHourlySeries().getTime(0));
+        assertEquals("10d", loaded.getForecasts().getHourlySeries().getIcon(0));
+        assertEquals(WeatherCondition.RAIN, loaded.getForecasts().getHourlySeries().getCondition(0));
+        assertEquals(90, loaded.getForecasts().getHourlySeries().getHumidity(0));
+        assertEquals(0, loaded.getForecasts().getDailySeries().size());
+    }
+
+    @Test
+    void testLoadWithoutCurrentWeather() {
+        SnapshotStore store = new SnapshotStore(new File(tempDir, "last_snapshot.json").getPath());
+        iAPI.ForecastBundle forecasts = new iAPI.ForecastBundle(List.of(), List.of());
+
+        store.save(new WeatherSnapshot(null, forecasts));
+        WeatherSnapshot loaded = store.load();
+
+        assertNull(loaded.getCurrent());
+        assertTrue(loaded.getForecasts().getHourly().isEmpty());
+    }
+
+    @Test
+    void testLoadMissingFile() {
+        SnapshotStore store = new SnapshotStore(new File(tempDir, "missing.json").getPath());
+
+        assertNull(store.load());
+    }
+}
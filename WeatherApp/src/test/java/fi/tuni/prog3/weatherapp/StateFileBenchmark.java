@@ -0,0 +1,61 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares loading the WeatherDataStorage state at startup from the three old files,
+ * the way the old constructor did (read as Object, write back to a String, parse the
+ * String again), with one read of the state file.
+ */
+public class StateFileBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args not used.
+     * @throws Exception if the benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("state-file");
+        List<String> favorites = List.of("Tampere", "Helsinki", "Oulu", "Joensuu", "Turku");
+        List<String> history = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            history.add("City " + i);
+        }
+        JsonMappers.writeFile(directory.resolve("favorite_cities.json").toFile(), favorites, true);
+        JsonMappers.writeFile(directory.resolve("current_city.json").toFile(), "Tampere", true);
+        JsonMappers.writeFile(directory.resolve("search_history.json").toFile(), history, true);
+        File stateFile = directory.resolve(WeatherDataStorage.STATE_FILE).toFile();
+        JsonMappers.writeFile(stateFile, new AppState(AppState.CURRENT_VERSION, 0, favorites, "Tampere", history), false);
+
+        long legacyBytes = 0;
+        for (String name : new String[] {"favorite_cities.json", "current_city.json", "search_history.json"}) {
+            legacyBytes += Files.size(directory.resolve(name));
+        }
+        System.out.println("Three files: " + legacyBytes + " B, state file: " + stateFile.length() + " B");
+
+        BenchmarkSupport.measure("Load three files (previous)", 2_000, () -> {
+            List<String> loadedFavorites = JsonMappers.STRING_LIST_READER.readValue(
+                    readFromFile(directory.resolve("favorite_cities.json").toFile()));
+            String current = readFromFile(directory.resolve("current_city.json").toFile());
+            List<String> loadedHistory = JsonMappers.STRING_LIST_READER.readValue(
+                    readFromFile(directory.resolve("search_history.json").toFile()));
+            return loadedFavorites.size() + current.length() + loadedHistory.size();
+        });
+        BenchmarkSupport.measure("Load state file", 2_000, () -> WeatherDataStorage.readState(stateFile));
+    }
+
+    /**
+     * The old WeatherDataStorage.readFromFile: lists are written back to a JSON String.
+     */
+    private static String readFromFile(File file) throws Exception {
+        Object data = JsonMappers.VALUE_READER.readValue(file);
+        if (data instanceof String) {
+            return (String) data;
+        }
+        return JsonMappers.WRITER.writeValueAsString(data);
+    }
+}
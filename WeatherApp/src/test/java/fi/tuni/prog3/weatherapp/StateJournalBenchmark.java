@@ -0,0 +1,58 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares saving one search with a large history the previous way, rewriting the
+ * whole state file, with appending one entry to the StateJournal. Both use the
+ * durability from the weatherapp.fsync system property.
+ */
+public class StateJournalBenchmark {
+    private static final int HISTORY_SIZE = 5_000;
+
+    /**
+     * Runs the benchmark.
+     * @param args not used.
+     * @throws Exception if the benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("state-journal");
+        List<String> history = new ArrayList<>();
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            history.add("City " + i);
+        }
+        AppState state = new AppState(AppState.CURRENT_VERSION, 0, List.of("Tampere"), "Tampere", history);
+        Path stateFile = directory.resolve("rewrite.json");
+        System.out.println("Durability: " + AtomicFiles.DEFAULT_DURABILITY + ", state file: "
+                + JsonMappers.toBytes(state, false).length + " B");
+
+        // The previous addSearchToHistory on an ArrayList, followed by a full rewrite
+        List<String> list = new ArrayList<>(history);
+        int[] next = {HISTORY_SIZE};
+        BenchmarkSupport.measure("ArrayList history + rewrite (previous)", 200, () -> {
+            String query = "City " + next[0]++;
+            if (!list.contains(query)) {
+                list.remove(list.size() - 1);
+                list.add(0, query);
+            }
+            AtomicFiles.write(stateFile, JsonMappers.toBytes(
+                    new AppState(AppState.CURRENT_VERSION, 0, List.of("Tampere"), "Tampere", list), false),
+                    AtomicFiles.DEFAULT_DURABILITY);
+            return list.size();
+        });
+
+        Path storageDirectory = Files.createDirectory(directory.resolve("storage"));
+        JsonMappers.writeFile(storageDirectory.resolve(WeatherDataStorage.STATE_FILE).toFile(), state, false);
+        WeatherDataStorage storage = new WeatherDataStorage(storageDirectory.toString(), HISTORY_SIZE,
+                Integer.MAX_VALUE);
+        BenchmarkSupport.measure("Journal append", 200, () -> {
+            storage.addSearchToHistory("City " + next[0]++);
+            storage.flush();
+            return next[0];
+        });
+        storage.close();
+    }
+}
@@ -0,0 +1,137 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEntriesAreReadInOrder() throws Exception {
+        Path journalFile = tempDir.resolve("state.journal");
+        StateJournal journal = new StateJournal(journalFile, tempDir.resolve("state.json"),
+                AtomicFiles.Durability.NONE);
+        journal.append(new StateJournal.Entry(1, StateJournal.Operation.ADD_FAVORITE, "Oulu"));
+        journal.append(new StateJournal.Entry(2, StateJournal.Operation.CLEAR_HISTORY, null));
+        journal.flush();
+
+        List<StateJournal.Entry> entries = StateJournal.read(journalFile);
+        assertEquals(2, entries.size());
+        assertEquals(StateJournal.Operation.ADD_FAVORITE, entries.get(0).getOperation());
+        assertEquals("Oulu", entries.get(0).getValue());
+        assertEquals(2, entries.get(1).getSequence());
+        assertNull(entries.get(1).getValue());
+        journal.close();
+    }
+
+    @Test
+    void testPartlyWrittenLineIsIgnored() throws Exception {
+        Path journalFile = tempDir.resolve("state.journal");
+        StateJournal journal = new StateJournal(journalFile, tempDir.resolve("state.json"),
+                AtomicFiles.Durability.NONE);
+        journal.append(new StateJournal.Entry(1, StateJournal.Operation.SET_CURRENT, "Turku"));
+        journal.close();
+        Files.write(journalFile, "{\"seq\":2,\"op\":\"ADD_SE".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        List<StateJournal.Entry> entries = StateJournal.read(journalFile);
+        assertEquals(1, entries.size());
+        assertEquals("Turku", entries.get(0).getValue());
+    }
+
+    @Test
+    void testCompactionEmptiesJournal() throws Exception {
+        Path journalFile = tempDir.resolve("state.journal");
+        Path stateFile = tempDir.resolve("state.json");
+        StateJournal journal = new StateJournal(journalFile, stateFile, AtomicFiles.Durability.NONE);
+        journal.append(new StateJournal.Entry(1, StateJournal.Operation.ADD_FAVORITE, "Oulu"));
+        journal.compact(new AppState(AppState.CURRENT_VERSION, 1, List.of("Oulu"), null, List.of()));
+        journal.append(new StateJournal.Entry(2, StateJournal.Operation.ADD_FAVORITE, "Vaasa"));
+        journal.flush();
+
+        assertEquals(1, WeatherDataStorage.readState(stateFile.toFile()).getSequence());
+        List<StateJournal.Entry> entries = StateJournal.read(journalFile);
+        assertEquals(1, entries.size());
+        assertEquals("Vaasa", entries.get(0).getValue());
+        journal.close();
+    }
+
+    @Test
+    void testSnapshotIsDurableBeforeJournalIsEmptied() throws Exception {
+        Path journalFile = tempDir.resolve("state.journal");
+        List<String> steps = new ArrayList<>();
+        StateJournal journal = new StateJournal(journalFile, tempDir.resolve("state.json"),
+                AtomicFiles.Durability.FILE, Duration.ZERO, (target, content, durability) -> {
+                    steps.add("snapshot " + durability + ", journal " + Files.size(journalFile) + " B");
+                    AtomicFiles.write(target, content, durability);
+                });
+        journal.append(new StateJournal.Entry(1, StateJournal.Operation.ADD_FAVORITE, "Oulu"));
+        journal.compact(new AppState(AppState.CURRENT_VERSION, 1, List.of("Oulu"), null, List.of()));
+        journal.flush();
+
+        // The entry was still in the journal while the snapshot was written durably
+        assertEquals(1, steps.size());
+        assertTrue(steps.get(0).startsWith("snapshot DIRECTORY, journal "), steps.get(0));
+        assertFalse(steps.get(0).endsWith(" 0 B"), steps.get(0));
+        assertEquals(0, Files.size(journalFile));
+        journal.close();
+    }
+
+    @Test
+    void testEntriesQueuedWhileBusyAreWrittenTogether() throws Exception {
+        Path journalFile = tempDir.resolve("state.journal");
+        CountDownLatch compacting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StateJournal journal = new StateJournal(journalFile, tempDir.resolve("state.json"),
+                AtomicFiles.Durability.FILE, Duration.ZERO, (target, content, durability) -> {
+                    compacting.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    AtomicFiles.write(target, content, durability);
+                });
+        journal.compact(new AppState(AppState.CURRENT_VERSION, 0, List.of(), null, List.of()));
+        compacting.await();
+        for (int i = 1; i <= 50; i++) {
+            journal.append(new StateJournal.Entry(i, StateJournal.Operation.ADD_SEARCH, "City " + i));
+        }
+        release.countDown();
+        journal.flush();
+
+        assertEquals(1, journal.getWriteCount());
+        List<StateJournal.Entry> entries = StateJournal.read(journalFile);
+        assertEquals(50, entries.size());
+        assertEquals(50, entries.get(49).getSequence());
+        journal.close();
+    }
+
+    @Test
+    void testDelayedEntriesAreWrittenTogether() throws Exception {
+        Path journalFile = tempDir.resolve("state.journal");
+        StateJournal journal = new StateJournal(journalFile, tempDir.resolve("state.json"),
+                AtomicFiles.Durability.NONE, Duration.ofHours(1));
+        journal.append(new StateJournal.Entry(1, StateJournal.Operation.ADD_FAVORITE, "Oulu"));
+        journal.append(new StateJournal.Entry(2, StateJournal.Operation.SET_CURRENT, "Oulu"));
+        assertEquals(0, journal.getWriteCount());
+        assertTrue(StateJournal.read(journalFile).isEmpty());
+
+        journal.close();
+        assertEquals(1, journal.getWriteCount());
+        assertEquals(2, StateJournal.read(journalFile).size());
+    }
+}
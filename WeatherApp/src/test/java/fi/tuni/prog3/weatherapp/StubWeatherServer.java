@@ -0,0 +1,156 @@
+package fi.tuni.prog3.weatherapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the OpenWeatherMap API used by the tests.
+ * Serves the recorded payloads in src/test/resources/fixtures and counts
+ * requests and distinct client connections, so latency and connection reuse
+ * can be measured offline.
+ */
+class StubWeatherServer implements AutoCloseable {
+    /**
+     * City name for which the geocoding endpoint returns an empty result.
+     */
+    static final String UNKNOWN_CITY = "Nowhere";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final Map<String, byte[]> fixtures = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestsByPath = new ConcurrentHashMap<>();
+    private final Map<String, String> lastQueryByPath = new ConcurrentHashMap<>();
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile long delayMillis;
+
+    /**
+     * Starts the server on a free local port.
+     * @throws IOException if the server cannot be started.
+     */
+    StubWeatherServer() throws IOException {
+        fixtures.put("/geo/1.0/direct", readFixture("geo.json"));
+        fixtures.put("/data/2.5/weather", readFixture("weather.json"));
+        fixtures.put("/data/2.5/onecall", readFixture("onecall.json"));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the base URL of the server.
+     * @return base URL, e.g. http://127.0.0.1:12345
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Sets an artificial delay for every response.
+     * @param delayMillis delay in milliseconds.
+     */
+    void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Returns the number of requests served.
+     * @return request count.
+     */
+    int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of requests served for the given path.
+     * @param path request path, e.g. /data/2.5/onecall
+     * @return request count for the path.
+     */
+    int getRequestCount(String path) {
+        AtomicInteger count = requestsByPath.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Returns the query string of the last request for the given path.
+     * @param path request path, e.g. /data/2.5/onecall
+     * @return query string, or null if the path has not been requested.
+     */
+    String getLastQuery(String path) {
+        return lastQueryByPath.get(path);
+    }
+
+    /**
+     * Returns the number of distinct client connections seen.
+     * @return connection count.
+     */
+    int getConnectionCount() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        connections.add(exchange.getRemoteAddress());
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        requestsByPath.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+        if (query != null) {
+            lastQueryByPath.put(path, query);
+        }
+
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        byte[] body = fixtures.get(path);
+        int status = 200;
+        if (body == null || query == null || query.contains("lat=-200")) {
+            status = 400;
+            body = "{\"cod\":\"400\",\"message\":\"bad request\"}".getBytes(StandardCharsets.UTF_8);
+        } else if (query.contains("q=" + UNKNOWN_CITY)) {
+            body = "[]".getBytes(StandardCharsets.UTF_8);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] readFixture(String name) {
+        try (InputStream in = StubWeatherServer.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture not found: " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package fi.tuni.prog3.weatherapp;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Compares the former per-call formatter construction with the cached TimeFormats
+ * helpers for the six hourly and seven daily labels of one forecast.
+ */
+public class TimeFormatsBenchmark {
+    private static final long BASE = 1700002800L;
+
+    /**
+     * Runs the benchmark.
+     * @param args not used.
+     * @throws Exception if the benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        BenchmarkSupport.measure("Labels: new formatters (before)", 20_000, () -> {
+            String last = null;
+            for (int i = 0; i < 6; i++) {
+                LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(BASE + i * 3600L),
+                        ZoneId.of("Europe/Helsinki"));
+                last = dateTime.format(DateTimeFormatter.ofPattern("HH:mm"));
+            }
+            for (int i = 0; i < 7; i++) {
+                SimpleDateFormat sdf = new SimpleDateFormat("EEEE", Locale.ENGLISH);
+                sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+                last = sdf.format(new Date((BASE + i * 86400L) * 1000));
+            }
+            return last;
+        });
+        BenchmarkSupport.measure("Labels: TimeFormats", 20_000, () -> {
+            String last = null;
+            for (int i = 0; i < 6; i++) {
+                last = TimeFormats.hourLabel(BASE + i * 3600L, "Europe/Helsinki");
+            }
+            for (int i = 0; i < 7; i++) {
+                last = TimeFormats.dayName(BASE + i * 86400L, 7200);
+            }
+            return last;
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for TimeFormats.
+ */
+class TimeFormatsTest {
+
+    @Test
+    void testHourLabel() {
+        // 2023-11-14T23:00:00Z
+        assertEquals("01:00", TimeFormats.hourLabel(1700002800L, 7200));
+        assertEquals("01:00", TimeFormats.hourLabel(1700002800L, "Europe/Helsinki"));
+        assertEquals("23:00", TimeFormats.hourLabel(1700002800L, "UTC"));
+        assertEquals("18:30", TimeFormats.hourLabel(1700002800L, -16200));
+    }
+
+    @Test
+    void testHourLabelFollowsDaylightSavingTime() {
+        // 2023-07-01T12:00:00Z, Helsinki is UTC+3 in summer
+        assertEquals("15:00", TimeFormats.hourLabel(1688212800L, "Europe/Helsinki"));
+        // Clocks go back at 2023-10-29T01:00:00Z
+        assertEquals("03:00", TimeFormats.hourLabel(1698537600L, "Europe/Helsinki"));
+        assertEquals("03:00", TimeFormats.hourLabel(1698541200L, "Europe/Helsinki"));
+        assertEquals("04:00", TimeFormats.hourLabel(1698544800L, "Europe/Helsinki"));
+    }
+
+    @Test
+    void testDayName() {
+        assertEquals("Thursday", TimeFormats.dayName(0L, 0));
+        // 2023-11-14T23:00:00Z is already Wednesday in Helsinki
+        assertEquals("Tuesday", TimeFormats.dayName(1700002800L, 0));
+        assertEquals("Wednesday", TimeFormats.dayName(1700002800L, 7200));
+        assertEquals("Wednesday", TimeFormats.dayName(-86400L, 0));
+    }
+
+    @Test
+    void testZoneIsCached() {
+        assertSame(TimeFormats.zone("Europe/Helsinki"), TimeFormats.zone("Europe/Helsinki"));
+    }
+}
@@ -0,0 +1,36 @@
+package fi.tuni.prog3.weatherapp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for UnitFormat.
+ */
+class UnitFormatTest {
+
+    @Test
+    void testTemperature() {
+        assertEquals("-1°C", UnitFormat.temperature(-1.2, true));
+        assertEquals("30°F", UnitFormat.temperature(-1.2, false));
+        assertEquals("0°C", UnitFormat.temperature(0.4, true));
+    }
+
+    @Test
+    void testPreciseTemperature() {
+        assertEquals("2.5°C", UnitFormat.preciseTemperature(2.5, true));
+        assertEquals("36.5°F", UnitFormat.preciseTemperature(2.5, false));
+    }
+
+    @Test
+    void testMaxMin() {
+        assertEquals("1°C / -3°C", UnitFormat.maxMin(1, -3, true));
+        assertEquals("34°F / 27°F", UnitFormat.maxMin(1, -3, false));
+    }
+
+    @Test
+    void testWindSpeed() {
+        assertEquals("3.6m/s", UnitFormat.windSpeed(3.6, true));
+        assertEquals("8.1mph", UnitFormat.windSpeed(3.6, false));
+    }
+}
@@ -1,7 +1,12 @@
 package fi.tuni.prog3.weatherapp;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -10,6 +15,9 @@ class WeatherDataStorageTest {
 
     private WeatherDataStorage weatherDataStorage;
 
+    @TempDir
+    File tempDir;
+
     @BeforeEach
     void setUp() {
         weatherDataStorage = Mockito.spy(new WeatherDataStorage());
@@ -51,4 +59,92 @@ class WeatherDataStorageTest {
 
         assertTrue(weatherDataStorage.getSearchHistory().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testStateIsSavedInOneFile() throws Exception {
+        WeatherDataStorage storage = new WeatherDataStorage(tempDir.getPath());
+        storage.addFavoriteCity("Oulu");
+        storage.setCurrentCity("Turku");
+        storage.addSearchToHistory("Turku");
+        storage.close();
+
+        assertArrayEquals(new String[] {WeatherDataStorage.STATE_FILE}, tempDir.list());
+        WeatherDataStorage loaded = new WeatherDataStorage(tempDir.getPath());
+        assertEquals(List.of("Oulu"), loaded.getFavoriteCities());
+        assertEquals("Turku", loaded.getCurrentCity());
+        assertEquals(List.of("Turku"), loaded.getSearchHistory());
+    }
+
+    @Test
+    void testLegacyFilesAreMigrated() throws Exception {
+        Files.writeString(tempDir.toPath().resolve("favorite_cities.json"), "[ \"Joensuu\", \"Kuopio\" ]");
+        Files.writeString(tempDir.toPath().resolve("current_city.json"), "\"Kuopio\"");
+        Files.writeString(tempDir.toPath().resolve("search_history.json"), "[ \"Kuopio\" ]");
+
+        WeatherDataStorage storage = new WeatherDataStorage(tempDir.getPath());
+
+        assertEquals(List.of("Joensuu", "Kuopio"), storage.getFavoriteCities());
+        assertEquals("Kuopio", storage.getCurrentCity());
+        assertEquals(List.of("Kuopio"), storage.getSearchHistory());
+        assertArrayEquals(new String[] {WeatherDataStorage.STATE_FILE}, tempDir.list());
+        AppState state = WeatherDataStorage.readState(new File(tempDir, WeatherDataStorage.STATE_FILE));
+        assertEquals(AppState.CURRENT_VERSION, state.getVersion());
+        assertEquals(List.of("Joensuu", "Kuopio"), state.getFavorites());
+    }
+
+    @Test
+    void testWriteToFileWritesTheFilesPart() throws Exception {
+        WeatherDataStorage storage = new WeatherDataStorage(tempDir.getPath());
+        storage.addFavoriteCity("Oulu");
+        storage.setCurrentCity("Turku");
+
+        assertTrue(storage.writeToFile("favorite_cities.json"));
+        assertTrue(storage.writeToFile("current_city.json"));
+        assertFalse(storage.writeToFile("unknown.json"));
+        assertEquals(List.of("Oulu"),
+                JsonMappers.STRING_LIST_READER.readValue(new File(tempDir, "favorite_cities.json")));
+        assertEquals("Turku", JsonMappers.VALUE_READER.readValue(new File(tempDir, "current_city.json")));
+        storage.close();
+    }
+
+    @Test
+    void testChangesAreReplayedFromJournal() throws Exception {
+        WeatherDataStorage storage = new WeatherDataStorage(tempDir.getPath());
+        storage.addFavoriteCity("Oulu");
+        storage.addFavoriteCity("Vaasa");
+        storage.removeFavoriteCity("Oulu");
+        storage.setCurrentCity("Vaasa");
+        storage.addSearchToHistory("Oulu");
+        storage.addSearchToHistory("Vaasa");
+        storage.flush();
+
+        // Not closed, as after a crash
+        assertTrue(new File(tempDir, WeatherDataStorage.JOURNAL_FILE).length() > 0);
+        WeatherDataStorage loaded = new WeatherDataStorage(tempDir.getPath());
+        assertEquals(List.of("Vaasa"), loaded.getFavoriteCities());
+        assertEquals("Vaasa", loaded.getCurrentCity());
+        assertEquals(List.of("Vaasa", "Oulu"), loaded.getSearchHistory());
+        storage.close();
+        loaded.close();
+    }
+
+    @Test
+    void testJournalIsCompacted() throws Exception {
+        WeatherDataStorage storage = new WeatherDataStorage(tempDir.getPath(), 3, 4);
+        for (int i = 0; i < 5; i++) {
+            storage.addSearchToHistory("City " + i);
+        }
+        storage.flush();
+
+        AppState state = WeatherDataStorage.readState(new File(tempDir, WeatherDataStorage.STATE_FILE));
+        assertEquals(4, state.getSequence());
+        assertEquals(List.of("City 3", "City 2", "City 1"), state.getHistory());
+        assertEquals(1, StateJournal.read(tempDir.toPath().resolve(WeatherDataStorage.JOURNAL_FILE)).size());
+        assertEquals(List.of("City 4", "City 3", "City 2"), storage.getSearchHistory());
+
+        storage.close();
+        assertArrayEquals(new String[] {WeatherDataStorage.STATE_FILE}, tempDir.list());
+        assertEquals(List.of("City 4", "City 3", "City 2"),
+                new WeatherDataStorage(tempDir.getPath(), 3, 4).getSearchHistory());
+    }
+}